@@ -0,0 +1,79 @@
+package com.gh4a;
+
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Captures successful API responses (status, relevant headers and the body
+ * as received) into fixture files, which can be served again by
+ * {@link ApiReplayServer}. Enable via {@link DefaultClient#setRecorder(ApiRecorder)}.
+ */
+public class ApiRecorder {
+    private static final List<String> RECORDED_HEADERS = Arrays.asList(
+        "Content-Type", "Content-Encoding", "ETag", "Last-Modified", "Link",
+        "X-GitHub-Media-Type", "X-Poll-Interval", "X-RateLimit-Limit",
+        "X-RateLimit-Remaining", "X-RateLimit-Reset", "X-RateLimit-Resource"
+    );
+
+    private final File mDirectory;
+
+    public ApiRecorder(File directory) {
+        mDirectory = directory;
+    }
+
+    public File getDirectory() {
+        return mDirectory;
+    }
+
+    public void record(String uri, String accept, HttpURLConnection conn, byte[] body) {
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            return;
+        }
+
+        String name = ApiReplayServer.getFixtureName(uri, accept);
+        File file = new File(mDirectory, name);
+        File tempFile = new File(mDirectory, name + ".tmp");
+        OutputStream out = null;
+        try {
+            StringBuilder sb = new StringBuilder();
+            sb.append("HTTP/1.1 ").append(conn.getResponseCode()).append(' ')
+                    .append(conn.getResponseMessage()).append("\r\n");
+            for (String header : RECORDED_HEADERS) {
+                String value = conn.getHeaderField(header);
+                if (value != null) {
+                    sb.append(header).append(": ").append(value).append("\r\n");
+                }
+            }
+            // not needed for replaying, but helps finding a fixture
+            sb.append("X-Recorded-Uri: ").append(uri).append("\r\n\r\n");
+
+            out = new BufferedOutputStream(new FileOutputStream(tempFile));
+            out.write(sb.toString().getBytes("ISO-8859-1"));
+            out.write(body);
+            out.close();
+            out = null;
+            if (!tempFile.renameTo(file)) {
+                tempFile.delete();
+            }
+        } catch (IOException e) {
+            Log.w(Gh4Application.LOG_TAG, "Could not record response for " + uri, e);
+            tempFile.delete();
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // ignored
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.gh4a;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal local HTTP server answering API requests from fixtures captured by
+ * {@link ApiRecorder}, so that loaders can be measured repeatably without
+ * talking to api.github.com. Fixtures are looked up by request URI and Accept
+ * header; If-None-Match is honored against the recorded ETag, and responses
+ * can be delayed and throttled to simulate slower networks.
+ *
+ * POST requests (e.g. GraphQL queries) are answered with the fixture stored
+ * for "POST " + URI, regardless of the request body, which allows stubbing
+ * such endpoints with a hand written fixture.
+ *
+ * This class only depends on the Java runtime, so it can also be run on a
+ * development machine against fixtures pulled from a device, see {@link #main}.
+ */
+public class ApiReplayServer {
+    private static final String API_BASE_URL = "https://api.github.com";
+    private static final Charset HEADER_CHARSET = Charset.forName("ISO-8859-1");
+    private static final int CHUNK_SIZE = 1024;
+
+    private final File mFixtureDirectory;
+    private final long mLatency;
+    private final long mBytesPerSecond;
+    private final ConcurrentHashMap<String, Fixture> mFixtures = new ConcurrentHashMap<>();
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+    private final AtomicLong mBodyByteCount = new AtomicLong();
+    private final ExecutorService mExecutor = Executors.newCachedThreadPool();
+    private ServerSocket mServerSocket;
+
+    private static class Fixture {
+        final String statusLine;
+        final List<String> headers;
+        final String eTag;
+        final byte[] body;
+
+        Fixture(String statusLine, List<String> headers, String eTag, byte[] body) {
+            this.statusLine = statusLine;
+            this.headers = headers;
+            this.eTag = eTag;
+            this.body = body;
+        }
+    }
+
+    /**
+     * @param latency Delay before each response is sent, in milliseconds
+     * @param bytesPerSecond Maximum transfer rate of response bodies, 0 for unlimited
+     */
+    public ApiReplayServer(File fixtureDirectory, long latency, long bytesPerSecond) {
+        mFixtureDirectory = fixtureDirectory;
+        mLatency = latency;
+        mBytesPerSecond = bytesPerSecond;
+    }
+
+    public static String getFixtureName(String uri, String accept) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] hash = digest.digest((uri + "|" + accept).getBytes("UTF-8"));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hash) {
+                sb.append(String.format(Locale.US, "%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public synchronized void start() throws IOException {
+        start(0);
+    }
+
+    public synchronized void start(int port) throws IOException {
+        if (mServerSocket != null) {
+            return;
+        }
+        mServerSocket = new ServerSocket(port, 50, InetAddress.getByName("127.0.0.1"));
+        final ServerSocket serverSocket = mServerSocket;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        final Socket socket = serverSocket.accept();
+                        mExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                serve(socket);
+                            }
+                        });
+                    } catch (IOException e) {
+                        // closed by stop()
+                    }
+                }
+            }
+        });
+    }
+
+    public synchronized void stop() {
+        if (mServerSocket != null) {
+            try {
+                mServerSocket.close();
+            } catch (IOException e) {
+                // ignored
+            }
+            mServerSocket = null;
+        }
+        mExecutor.shutdownNow();
+    }
+
+    public synchronized String getBaseUrl() {
+        if (mServerSocket == null) {
+            throw new IllegalStateException("Server is not running");
+        }
+        return "http://127.0.0.1:" + mServerSocket.getLocalPort();
+    }
+
+    public int getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    /**
+     * @return Number of response body bytes sent, as stored in the fixtures
+     *         (i.e. usually compressed)
+     */
+    public long getBodyByteCount() {
+        return mBodyByteCount.get();
+    }
+
+    public void resetCounts() {
+        mRequestCount.set(0);
+        mBodyByteCount.set(0);
+    }
+
+    private void serve(Socket socket) {
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            boolean keepAlive = true;
+
+            while (keepAlive) {
+                String requestLine = readLine(in);
+                if (requestLine == null || requestLine.isEmpty()) {
+                    break;
+                }
+                String accept = null;
+                String ifNoneMatch = null;
+                long contentLength = 0;
+                String header;
+                while ((header = readLine(in)) != null && !header.isEmpty()) {
+                    int colon = header.indexOf(':');
+                    if (colon < 0) {
+                        continue;
+                    }
+                    String name = header.substring(0, colon).trim();
+                    String value = header.substring(colon + 1).trim();
+                    if ("Accept".equalsIgnoreCase(name)) {
+                        accept = value;
+                    } else if ("If-None-Match".equalsIgnoreCase(name)) {
+                        ifNoneMatch = value;
+                    } else if ("Content-Length".equalsIgnoreCase(name)) {
+                        contentLength = Long.parseLong(value);
+                    } else if ("Connection".equalsIgnoreCase(name)) {
+                        keepAlive = !"close".equalsIgnoreCase(value);
+                    }
+                }
+
+                mRequestCount.incrementAndGet();
+                String[] parts = requestLine.split(" ");
+                boolean isPost = parts.length >= 2 && "POST".equals(parts[0]);
+                if (parts.length < 2 || (!isPost && !"GET".equals(parts[0]))) {
+                    writeError(out, "405 Method Not Allowed", "Only GET and POST are supported");
+                    out.flush();
+                    break;
+                }
+                if (isPost) {
+                    skip(in, contentLength);
+                }
+
+                Fixture fixture = getFixture(isPost ? "POST " + parts[1] : parts[1], accept);
+                if (fixture == null) {
+                    writeError(out, "404 Not Found", "No fixture recorded for " + parts[1]);
+                } else {
+                    sleep(mLatency);
+                    boolean notModified = ifNoneMatch != null && ifNoneMatch.equals(fixture.eTag);
+                    writeFixture(out, fixture, notModified);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // client went away
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
+    }
+
+    private Fixture getFixture(String uri, String accept) throws IOException {
+        String name = getFixtureName(uri, accept);
+        Fixture fixture = mFixtures.get(name);
+        if (fixture == null) {
+            File file = new File(mFixtureDirectory, name);
+            if (!file.exists()) {
+                return null;
+            }
+            fixture = readFixture(file);
+            mFixtures.put(name, fixture);
+        }
+        return fixture;
+    }
+
+    private Fixture readFixture(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            String statusLine = readLine(in);
+            if (statusLine == null) {
+                throw new IOException("Empty fixture " + file);
+            }
+            List<String> headers = new ArrayList<>();
+            String eTag = null;
+            String header;
+            while ((header = readLine(in)) != null && !header.isEmpty()) {
+                if (header.regionMatches(true, 0, "Link:", 0, 5)) {
+                    // keep pagination on this server
+                    header = header.replace(API_BASE_URL, getBaseUrl());
+                } else if (header.regionMatches(true, 0, "ETag:", 0, 5)) {
+                    eTag = header.substring(5).trim();
+                }
+                headers.add(header);
+            }
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                body.write(buffer, 0, read);
+            }
+            return new Fixture(statusLine, headers, eTag, body.toByteArray());
+        } finally {
+            in.close();
+        }
+    }
+
+    private void writeFixture(OutputStream out, Fixture fixture, boolean notModified)
+            throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(notModified ? "HTTP/1.1 304 Not Modified" : fixture.statusLine).append("\r\n");
+        for (String header : fixture.headers) {
+            sb.append(header).append("\r\n");
+        }
+        int length = notModified ? 0 : fixture.body.length;
+        sb.append("Content-Length: ").append(length).append("\r\n\r\n");
+        out.write(sb.toString().getBytes(HEADER_CHARSET));
+        if (!notModified) {
+            mBodyByteCount.addAndGet(fixture.body.length);
+            writeThrottled(out, fixture.body);
+        }
+    }
+
+    private void writeThrottled(OutputStream out, byte[] data) throws IOException {
+        if (mBytesPerSecond <= 0) {
+            out.write(data);
+            return;
+        }
+        long start = System.nanoTime();
+        for (int offset = 0; offset < data.length; offset += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, data.length - offset);
+            out.write(data, offset, count);
+            out.flush();
+            long due = (offset + count) * 1000L / mBytesPerSecond;
+            long elapsed = (System.nanoTime() - start) / 1000000;
+            sleep(due - elapsed);
+        }
+    }
+
+    private static void writeError(OutputStream out, String status, String message)
+            throws IOException {
+        byte[] body = ("{\"message\":\"" + message.replace("\"", "\\\"") + "\"}")
+                .getBytes("UTF-8");
+        String headers = "HTTP/1.1 " + status + "\r\n"
+                + "Content-Type: application/json; charset=utf-8\r\n"
+                + "Content-Length: " + body.length + "\r\n\r\n";
+        out.write(headers.getBytes(HEADER_CHARSET));
+        out.write(body);
+    }
+
+    private static void skip(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new IOException("Unexpected end of request body");
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '\n') {
+                int length = sb.length();
+                if (length > 0 && sb.charAt(length - 1) == '\r') {
+                    sb.setLength(length - 1);
+                }
+                return sb.toString();
+            }
+            sb.append((char) c);
+        }
+        return sb.length() > 0 ? sb.toString() : null;
+    }
+
+    private static void sleep(long millis) throws IOException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted");
+        }
+    }
+
+    /**
+     * Usage: ApiReplayServer fixture-dir [port [latency-ms [bytes-per-second]]]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ApiReplayServer fixture-dir "
+                    + "[port [latency-ms [bytes-per-second]]]");
+            System.exit(1);
+        }
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        long latency = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        long bytesPerSecond = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        ApiReplayServer server = new ApiReplayServer(new File(args[0]), latency, bytesPerSecond);
+        server.start(port);
+        System.out.println("Replaying " + args[0] + " at " + server.getBaseUrl());
+    }
+}
@@ -0,0 +1,244 @@
+package com.gh4a;
+
+import android.support.v4.util.Pair;
+import android.util.Log;
+
+import com.gh4a.utils.ApiHelpers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Disk backed store of API response bodies (as received, i.e. usually still
+ * compressed) together with their validators (ETag / Last-Modified), used to
+ * issue conditional requests and to serve the stored body when the server
+ * answers with 304 Not Modified.
+ * Stored bodies are also served as-is while offline or as placeholder data
+ * until a fresh response arrives, as long as they're younger than the maximum
+ * age configured for the respective endpoint.
+ */
+public class ApiResponseCache {
+    private static final int FORMAT_VERSION = 2;
+    private static final long DEFAULT_MAX_SIZE = 10 * 1024 * 1024;
+
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    private static final List<Pair<Pattern, Long>> MAX_AGE_RULES = Arrays.asList(
+        // search results and the rate limit status are never served from cache
+        Pair.create(Pattern.compile("^/(search|rate_limit)\\b"), 0L),
+        Pair.create(Pattern.compile("^/notifications\\b"), 10 * MINUTE),
+        Pair.create(Pattern.compile("/events\\b"), HOUR),
+        Pair.create(Pattern.compile("^/repos/[^/]+/[^/]+/(issues|pulls)\\b"), DAY),
+        Pair.create(Pattern.compile(".*"), 7 * DAY)
+    );
+
+    private final File mDirectory;
+    private final long mMaxSize;
+    private long mSize = -1;
+
+    public static class Entry {
+        public final String eTag;
+        public final String lastModified;
+        public final String link;
+        public final String contentEncoding;
+        public final long storedAt;
+        public final byte[] body;
+
+        public Entry(String eTag, String lastModified, String link, String contentEncoding,
+                long storedAt, byte[] body) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.link = link;
+            this.contentEncoding = contentEncoding;
+            this.storedAt = storedAt;
+            this.body = body;
+        }
+    }
+
+    public ApiResponseCache(File directory) {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    public ApiResponseCache(File directory, long maxSize) {
+        mDirectory = directory;
+        mMaxSize = maxSize;
+    }
+
+    public static String makeKey(String uri, String accept) {
+        return ApiHelpers.md5(uri + "|" + accept);
+    }
+
+    public static long getMaxAge(String uri) {
+        for (Pair<Pattern, Long> rule : MAX_AGE_RULES) {
+            if (rule.first.matcher(uri).find()) {
+                return rule.second;
+            }
+        }
+        return 0;
+    }
+
+    public static boolean isUsable(String uri, Entry entry) {
+        return System.currentTimeMillis() - entry.storedAt <= getMaxAge(uri);
+    }
+
+    public synchronized Entry get(String key) {
+        File file = new File(mDirectory, key);
+        if (!file.exists()) {
+            return null;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != FORMAT_VERSION) {
+                file.delete();
+                return null;
+            }
+            String eTag = readOptionalString(in);
+            String lastModified = readOptionalString(in);
+            String link = readOptionalString(in);
+            String contentEncoding = readOptionalString(in);
+            long storedAt = in.readLong();
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            // keep track of the access for LRU eviction
+            file.setLastModified(System.currentTimeMillis());
+            return new Entry(eTag, lastModified, link, contentEncoding, storedAt, body);
+        } catch (IOException e) {
+            Log.w(Gh4Application.LOG_TAG, "Discarding unreadable cache entry " + key, e);
+            file.delete();
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    public synchronized void put(String key, Entry entry) {
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            return;
+        }
+
+        File file = new File(mDirectory, key);
+        File tempFile = new File(mDirectory, key + ".tmp");
+        long previousLength = file.length();
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            out.writeInt(FORMAT_VERSION);
+            writeOptionalString(out, entry.eTag);
+            writeOptionalString(out, entry.lastModified);
+            writeOptionalString(out, entry.link);
+            writeOptionalString(out, entry.contentEncoding);
+            out.writeLong(entry.storedAt);
+            out.writeInt(entry.body.length);
+            out.write(entry.body);
+            out.close();
+            out = null;
+            if (tempFile.renameTo(file)) {
+                mSize = getSize() - previousLength + file.length();
+                trimToSize();
+            } else {
+                tempFile.delete();
+            }
+        } catch (IOException e) {
+            Log.w(Gh4Application.LOG_TAG, "Could not write cache entry " + key, e);
+            tempFile.delete();
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    public synchronized void remove(String key) {
+        File file = new File(mDirectory, key);
+        long length = file.length();
+        if (file.delete() && mSize >= 0) {
+            mSize -= length;
+        }
+    }
+
+    public synchronized void clear() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mSize = 0;
+    }
+
+    private long getSize() {
+        if (mSize < 0) {
+            mSize = 0;
+            File[] files = mDirectory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    mSize += file.length();
+                }
+            }
+        }
+        return mSize;
+    }
+
+    private void trimToSize() {
+        if (mSize <= mMaxSize) {
+            return;
+        }
+
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                long lhsModified = lhs.lastModified();
+                long rhsModified = rhs.lastModified();
+                return lhsModified < rhsModified ? -1 : (lhsModified == rhsModified ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (mSize <= mMaxSize) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                mSize -= length;
+            }
+        }
+    }
+
+    private static String readOptionalString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeOptionalString(DataOutputStream out, String value)
+            throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
+    }
+}
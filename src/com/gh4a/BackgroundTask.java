@@ -6,6 +6,7 @@ import android.support.v4.os.AsyncTaskCompat;
 
 public abstract class BackgroundTask<T> extends AsyncTask<Void, Void, T> {
     private final Context mContext;
+    private final CancellationToken mCancellationToken = new CancellationToken();
     private Exception mException;
 
     public BackgroundTask(Context context) {
@@ -20,13 +21,28 @@ public abstract class BackgroundTask<T> extends AsyncTask<Void, Void, T> {
         AsyncTaskCompat.executeParallel(this);
     }
 
+    /**
+     * Cancels the task and aborts the API requests it's currently doing.
+     * Neither {@link #onSuccess(Object)} nor {@link #onError(Exception)} will be
+     * called afterwards. Only use this for tasks which don't modify anything.
+     */
+    public void abort() {
+        cancel(false);
+        mCancellationToken.cancel();
+    }
+
     @Override
     protected T doInBackground(Void... params) {
+        DefaultClient.setCancellationToken(mCancellationToken);
         try {
             return run();
         } catch (Exception e) {
-            e.printStackTrace();
+            if (!isCancelled()) {
+                e.printStackTrace();
+            }
             mException = e;
+        } finally {
+            DefaultClient.setCancellationToken(null);
         }
         return null;
     }
@@ -113,6 +113,22 @@ public abstract class BaseActivity extends AppCompatActivity implements
         }
     };
 
+    private final RequestScheduler.ThrottleListener mThrottleListener =
+            new RequestScheduler.ThrottleListener() {
+        @Override
+        public void onThrottleStateChanged(final boolean throttling) {
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (throttling && !isFinishing()) {
+                        Snackbar.make(getRootLayout(), R.string.rate_limit_throttled_notice,
+                                Snackbar.LENGTH_LONG).show();
+                    }
+                }
+            });
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         setTheme(Gh4Application.THEME);
@@ -381,6 +397,13 @@ public abstract class BaseActivity extends AppCompatActivity implements
         if (mContentContainer.getChildCount() == 0) {
             throw new IllegalStateException("Content view must be initialized before");
         }
+        Gh4Application.get().getRequestScheduler().addThrottleListener(mThrottleListener);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        Gh4Application.get().getRequestScheduler().removeThrottleListener(mThrottleListener);
     }
 
     @Override
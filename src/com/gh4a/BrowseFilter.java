@@ -39,6 +39,7 @@ import com.gh4a.utils.FileUtils;
 import com.gh4a.utils.IntentUtils;
 import com.gh4a.utils.StringUtils;
 import com.gh4a.utils.UiUtils;
+import com.google.gson.reflect.TypeToken;
 
 import org.eclipse.egit.github.core.CommitComment;
 import org.eclipse.egit.github.core.CommitFile;
@@ -46,7 +47,6 @@ import org.eclipse.egit.github.core.PullRequest;
 import org.eclipse.egit.github.core.Release;
 import org.eclipse.egit.github.core.RepositoryBranch;
 import org.eclipse.egit.github.core.RepositoryCommit;
-import org.eclipse.egit.github.core.RepositoryId;
 import org.eclipse.egit.github.core.RepositoryTag;
 import org.eclipse.egit.github.core.client.IGitHubConstants;
 import org.eclipse.egit.github.core.service.RepositoryService;
@@ -58,6 +58,8 @@ import java.util.regex.Pattern;
 public class BrowseFilter extends AppCompatActivity {
     private static final Pattern SHA1_PATTERN = Pattern.compile("[a-z0-9]{40}");
 
+    private UrlLoadTask mRunningTask;
+
     public void onCreate(Bundle savedInstanceState) {
         setTheme(Gh4Application.THEME == R.style.DarkTheme
                 ? R.style.TransparentDarkTheme : R.style.TransparentLightTheme);
@@ -178,6 +180,16 @@ public class BrowseFilter extends AppCompatActivity {
         finish();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (mRunningTask != null && isFinishing()) {
+            // the user backed out of the progress dialog, don't waste bandwidth on the lookup
+            mRunningTask.abort();
+            mRunningTask = null;
+        }
+    }
+
     private long extractCommentId(String fragment, String type) {
         String prefix = type + "comment-";
         if (fragment != null && fragment.startsWith(prefix)) {
@@ -270,9 +282,16 @@ public class BrowseFilter extends AppCompatActivity {
         @Override
         protected void onPreExecute() {
             super.onPreExecute();
+            mRunningTask = this;
             new ProgressDialogFragment().show(getSupportFragmentManager(), "progress");
         }
 
+        @Override
+        protected void onPostExecute(Intent result) {
+            mRunningTask = null;
+            super.onPostExecute(result);
+        }
+
         @Override
         protected void onSuccess(Intent result) {
             if (isFinishing()) {
@@ -510,10 +529,12 @@ public class BrowseFilter extends AppCompatActivity {
         private Pair<String, String> resolve() throws Exception {
             RepositoryService repoService = (RepositoryService)
                     Gh4Application.get().getService(Gh4Application.REPO_SERVICE);
-            RepositoryId repo = new RepositoryId(mRepoOwner, mRepoName);
+            String repoUri = IGitHubConstants.SEGMENT_REPOS + "/" + mRepoOwner + "/" + mRepoName;
 
             // try branches first
-            List<RepositoryBranch> branches = repoService.getBranches(repo);
+            List<RepositoryBranch> branches = ParallelPageCollector.getAll(
+                    repoService.getClient(), repoUri + IGitHubConstants.SEGMENT_BRANCHES,
+                    new TypeToken<List<RepositoryBranch>>() {}.getType());
             if (branches != null) {
                 for (RepositoryBranch branch : branches) {
                     if (TextUtils.equals(mRefAndPath, branch.getName())) {
@@ -533,7 +554,9 @@ public class BrowseFilter extends AppCompatActivity {
             }
 
             // and tags second
-            List<RepositoryTag> tags = repoService.getTags(repo);
+            List<RepositoryTag> tags = ParallelPageCollector.getAll(
+                    repoService.getClient(), repoUri + IGitHubConstants.SEGMENT_TAGS,
+                    new TypeToken<List<RepositoryTag>>() {}.getType());
             if (tags != null) {
                 for (RepositoryTag tag : tags) {
                     if (TextUtils.equals(mRefAndPath, tag.getName())) {
@@ -0,0 +1,88 @@
+package com.gh4a;
+
+import android.os.AsyncTask;
+
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Allows aborting the HTTP requests done on behalf of a loader or task.
+ * Connections opened while the token is active are registered with it;
+ * cancelling the token disconnects them, which makes pending reads fail
+ * immediately, and makes further requests fail before they're sent.
+ */
+public class CancellationToken {
+    private final List<HttpURLConnection> mConnections = new ArrayList<>();
+    private boolean mCancelled;
+    private boolean mQueued;
+
+    public static class CancelledException extends InterruptedIOException {
+        public CancelledException() {
+            super("Request was cancelled");
+        }
+    }
+
+    public void cancel() {
+        final List<HttpURLConnection> connections;
+        synchronized (this) {
+            if (mCancelled) {
+                return;
+            }
+            mCancelled = true;
+            connections = new ArrayList<>(mConnections);
+            mConnections.clear();
+        }
+
+        if (connections.isEmpty()) {
+            return;
+        }
+        // closing the socket may involve network I/O, so don't do it on the caller's thread
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (HttpURLConnection connection : connections) {
+                    connection.disconnect();
+                }
+            }
+        });
+    }
+
+    /**
+     * Cancels the token only if its request is still waiting for the
+     * {@link RequestScheduler}, that is, before anything was sent.
+     * @return Whether the token is cancelled
+     */
+    public synchronized boolean cancelIfQueued() {
+        if (mQueued) {
+            cancel();
+        }
+        return mCancelled;
+    }
+
+    synchronized void setQueued(boolean queued) {
+        mQueued = queued;
+    }
+
+    public synchronized boolean isCancelled() {
+        return mCancelled;
+    }
+
+    public void throwIfCancelled() throws CancelledException {
+        if (isCancelled()) {
+            throw new CancelledException();
+        }
+    }
+
+    public synchronized void register(HttpURLConnection connection) throws CancelledException {
+        if (mCancelled) {
+            throw new CancelledException();
+        }
+        mConnections.add(connection);
+    }
+
+    public synchronized void unregister(HttpURLConnection connection) {
+        mConnections.remove(connection);
+    }
+}
@@ -0,0 +1,86 @@
+package com.gh4a;
+
+import android.os.AsyncTask;
+import android.util.Log;
+
+import com.gh4a.activities.home.HomeActivity;
+
+import org.eclipse.egit.github.core.okhttp.OkHttpProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opens connections to the hosts the start page is going to talk to while
+ * the home screen is still being set up, so that the first requests don't have to wait
+ * for DNS lookup, TCP and TLS handshakes. The connections end up in the pool
+ * of the shared OkHttp client, which is used for all HTTP traffic.
+ */
+public class ConnectionPrewarmer {
+    // HEAD requests against these don't count against any rate limit
+    private static final String API_URL = "https://api.github.com/rate_limit";
+    private static final String AVATAR_URL = "https://avatars.githubusercontent.com/";
+    private static final String WEB_URL = "https://github.com/";
+    private static final String TREND_URL = "http://octodroid.s3.amazonaws.com/";
+
+    private ConnectionPrewarmer() {
+    }
+
+    /**
+     * Starts pre-warming the connections needed by the given start page in
+     * the background.
+     *
+     * @param startPage Start page value as returned by {@link HomeActivity#getStartPage}
+     */
+    public static void prewarm(String startPage) {
+        for (final String url : getUrlsForStartPage(startPage)) {
+            AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    warmUp(url);
+                }
+            });
+        }
+    }
+
+    public static List<String> getUrlsForStartPage(String startPage) {
+        List<String> urls = new ArrayList<>();
+        // the home screen always loads the user and their avatar for the drawer
+        urls.add(API_URL);
+        urls.add(AVATAR_URL);
+        if ("trends".equals(startPage)) {
+            urls.add(TREND_URL);
+        } else if ("blog".equals(startPage)) {
+            urls.add(WEB_URL);
+        }
+        return urls;
+    }
+
+    /**
+     * Opens (or reuses) a connection to the host of the given URL and leaves
+     * it in the connection pool. Blocks until done.
+     */
+    public static void warmUp(String url) {
+        HttpURLConnection connection = null;
+        try {
+            connection = OkHttpProvider.getOkHttpClient().open(new URL(url));
+            connection.setRequestMethod("HEAD");
+            int code = connection.getResponseCode();
+            // closing the (empty) response body releases the connection to the pool
+            InputStream in = code >= HttpURLConnection.HTTP_BAD_REQUEST
+                    ? connection.getErrorStream() : connection.getInputStream();
+            if (in != null) {
+                in.close();
+            }
+        } catch (IOException e) {
+            Log.d(Gh4Application.LOG_TAG, "Pre-warming connection to " + url + " failed", e);
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+}
@@ -1,13 +1,86 @@
 package com.gh4a;
 
+import android.support.v4.util.Pair;
+
 import org.eclipse.egit.github.core.client.GitHubClient;
+import org.eclipse.egit.github.core.client.GitHubRequest;
+import org.eclipse.egit.github.core.client.GitHubResponse;
 import org.eclipse.egit.github.core.client.PageIterator;
 import org.eclipse.egit.github.core.client.PagedRequest;
+import org.eclipse.egit.github.core.client.RequestException;
+import org.eclipse.egit.github.core.service.GitHubService;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 public class DefaultClient extends GitHubClient {
-    private static final String DEFAULT_HEADER_ACCEPT = "application/vnd.github.v3.full+json";
+    private static final String DEFAULT_HEADER_ACCEPT = GitHubService.ACCEPT_FULL;
+
+    // Media types for GETs by clients using the default Accept header. Lists whose
+    // item bodies are never rendered as HTML only ask for the raw body instead of
+    // raw, HTML and text representations; everything else (detail views and comment
+    // lists, which render the HTML and edit the raw body) keeps the default.
+    private static final List<Pair<Pattern, String>> MEDIA_TYPE_RULES = Arrays.asList(
+        Pair.create(Pattern.compile("^/repos/[^/]+/[^/]+/(issues|pulls)(\\?|$)"),
+                GitHubService.ACCEPT_RAW),
+        Pair.create(Pattern.compile("^/((user|orgs/[^/]+)/)?issues(\\?|$)"),
+                GitHubService.ACCEPT_RAW),
+        Pair.create(Pattern.compile("^/search/issues\\b"), GitHubService.ACCEPT_RAW),
+        Pair.create(Pattern.compile("/events(\\?|$)"), GitHubService.ACCEPT_RAW)
+    );
+
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+    private static final String HEADER_LINK = "Link";
+
+    // time for which the result of a finished GET is handed out to identical requests,
+    // which covers screens firing the same request from several places while opening
+    private static final long COALESCED_RESULT_REUSE_TIME = 500;
+    // interval in which requests waiting for a coalesced GET check for cancellation
+    private static final long CANCEL_CHECK_INTERVAL = 500;
+
+    private static final ThreadLocal<Boolean> sCacheOnly = new ThreadLocal<>();
+    private static final ThreadLocal<Integer> sRequestPriority = new ThreadLocal<>();
+    private static final ThreadLocal<CancellationToken> sCancellationToken = new ThreadLocal<>();
+
+    private static final RequestRetryPolicy sRetryPolicy = new RequestRetryPolicy();
+    private static final ExecutorService sHedgingExecutor = Executors.newCachedThreadPool();
+
+    private static volatile ApiRecorder sRecorder;
+    private static volatile String sReplayBaseUrl;
+
+    private final HashMap<String, SharedGet> mSharedGets = new HashMap<>();
+
+    public static class CacheMissException extends IOException {
+        public CacheMissException(String uri) {
+            super("No usable cached response for " + uri);
+        }
+    }
 
     public DefaultClient() {
         this(DEFAULT_HEADER_ACCEPT);
@@ -33,8 +106,684 @@ public class DefaultClient extends GitHubClient {
         return super.isError(code);
     }
 
+    /**
+     * Serves GET requests issued from the current thread from the response cache only.
+     * Requests that can't be served from the cache fail with {@link CacheMissException}.
+     */
+    public static void setCacheOnly(boolean cacheOnly) {
+        sCacheOnly.set(cacheOnly);
+    }
+
+    public static boolean isCacheOnly() {
+        Boolean cacheOnly = sCacheOnly.get();
+        return cacheOnly != null && cacheOnly;
+    }
+
+    /**
+     * Sets the {@link RequestScheduler} priority of GET requests issued from the current thread.
+     */
+    public static void setRequestPriority(int priority) {
+        sRequestPriority.set(priority);
+    }
+
+    public static int getRequestPriority() {
+        Integer priority = sRequestPriority.get();
+        return priority != null ? priority : RequestScheduler.PRIORITY_FOREGROUND;
+    }
+
+    /**
+     * Sets the token used for aborting requests issued from the current thread.
+     * Pass null to reset.
+     */
+    public static void setCancellationToken(CancellationToken token) {
+        sCancellationToken.set(token);
+    }
+
+    public static CancellationToken getCancellationToken() {
+        return sCancellationToken.get();
+    }
+
+    /**
+     * Captures all successful GET responses into fixtures. While set, GETs bypass
+     * the response cache and aren't coalesced or hedged, so every request gets a
+     * full response that can be recorded. Pass null to stop recording.
+     */
+    public static void setRecorder(ApiRecorder recorder) {
+        sRecorder = recorder;
+    }
+
+    /**
+     * Sends all requests to the given server (usually an {@link ApiReplayServer})
+     * instead of the API host. While set, GETs bypass the response cache and
+     * aren't coalesced or hedged, so every request actually reaches the server.
+     * Pass null to talk to the API host again.
+     */
+    public static void setReplayBaseUrl(String baseUrl) {
+        sReplayBaseUrl = baseUrl;
+    }
+
+    @Override
+    protected String createUri(String uri) {
+        String replayBaseUrl = sReplayBaseUrl;
+        return replayBaseUrl != null ? replayBaseUrl + uri : super.createUri(uri);
+    }
+
+    @Override
+    protected GitHubClient updateRateLimits(HttpURLConnection request) {
+        super.updateRateLimits(request);
+        RequestScheduler scheduler = Gh4Application.get().getRequestScheduler();
+        // recorded rate limit headers say nothing about the current budget
+        if (scheduler != null && sReplayBaseUrl == null) {
+            scheduler.update(request);
+        }
+        return this;
+    }
+
+    @Override
+    protected HttpURLConnection createConnection(String uri, String method) throws IOException {
+        if (isCacheOnly()) {
+            throw new CacheMissException(uri);
+        }
+        if (!METHOD_GET.equals(method)) {
+            // GETs still running were sent before this modification,
+            // so don't let any later request join them
+            synchronized (mSharedGets) {
+                mSharedGets.clear();
+            }
+        }
+        HttpURLConnection conn = super.createConnection(uri, method);
+        CancellationToken token = getCancellationToken();
+        if (token != null) {
+            token.register(conn);
+        }
+        return conn;
+    }
+
+    private String getAcceptForUri(String uri) {
+        String accept = getHeaderAccept();
+        if (!DEFAULT_HEADER_ACCEPT.equals(accept)) {
+            // the client was explicitly set up for a specific media type
+            return accept;
+        }
+        for (Pair<Pattern, String> rule : MEDIA_TYPE_RULES) {
+            if (rule.first.matcher(uri).find()) {
+                return rule.second;
+            }
+        }
+        return accept;
+    }
+
+    @Override
+    public GitHubResponse get(GitHubRequest request) throws IOException {
+        String uri = request.generateUri();
+        String accept = request.getResponseContentType();
+        if (accept == null) {
+            accept = getAcceptForUri(uri);
+        }
+
+        // fixtures must be complete responses, and replaying them must reach the server
+        boolean bypassCache = sReplayBaseUrl != null || sRecorder != null;
+        ApiResponseCache cache = bypassCache ? null : Gh4Application.get().getResponseCache();
+        String cacheKey = ApiResponseCache.makeKey(uri, accept);
+        ApiResponseCache.Entry cached = cache != null ? cache.get(cacheKey) : null;
+
+        if (isCacheOnly()) {
+            if (cached == null || !ApiResponseCache.isUsable(uri, cached)) {
+                throw new CacheMissException(uri);
+            }
+            return serveFromCache(request, uri, cached);
+        }
+        if (bypassCache) {
+            return scheduleGet(request, uri, accept, null, cacheKey, null);
+        }
+
+        // Coalesce identical requests running concurrently (or shortly after each other)
+        // into a single network request
+        String sharedKey = cacheKey + "|" + request.getType();
+        int priority = getRequestPriority();
+        SharedGet sharedGet;
+        boolean isOwner = false;
+        synchronized (mSharedGets) {
+            pruneSharedGets();
+            sharedGet = mSharedGets.get(sharedKey);
+            // don't let a request the user waits for queue up behind a prefetch
+            if (sharedGet == null || (!sharedGet.isDone() && priority < sharedGet.priority)) {
+                sharedGet = new SharedGet(priority);
+                mSharedGets.put(sharedKey, sharedGet);
+                isOwner = true;
+            }
+        }
+        if (!isOwner) {
+            GitHubResponse response;
+            try {
+                response = sharedGet.await(getCancellationToken());
+            } catch (RequestException e) {
+                throw e;
+            } catch (IOException e) {
+                // the request failed on behalf of the thread that issued it first
+                // (cancelled, dropped by the scheduler, no network), so try on our own
+                CancellationToken token = getCancellationToken();
+                if (token != null && token.isCancelled()) {
+                    throw e;
+                }
+                return get(request);
+            }
+            return copyResponse(request, response);
+        }
+
+        try {
+            GitHubResponse response = scheduleGet(request, uri, accept, cache, cacheKey, cached);
+            // stays around for COALESCED_RESULT_REUSE_TIME, unless a write happens in between
+            sharedGet.complete(response, null);
+            return response;
+        } catch (IOException e) {
+            removeSharedGet(sharedKey, sharedGet);
+            sharedGet.complete(null, e);
+            throw e;
+        } catch (RuntimeException e) {
+            removeSharedGet(sharedKey, sharedGet);
+            sharedGet.complete(null, new IOException(e));
+            throw e;
+        }
+    }
+
+    private void removeSharedGet(String key, SharedGet sharedGet) {
+        synchronized (mSharedGets) {
+            // a request of higher priority may have taken over the key in the meantime
+            if (mSharedGets.get(key) == sharedGet) {
+                mSharedGets.remove(key);
+            }
+        }
+    }
+
+    // must be called with mSharedGets held
+    private void pruneSharedGets() {
+        long now = System.currentTimeMillis();
+        Iterator<SharedGet> iter = mSharedGets.values().iterator();
+        while (iter.hasNext()) {
+            if (iter.next().isExpired(now)) {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Gives a coalesced request its own copy of the response body,
+     * as callers are free to modify the one they got.
+     */
+    private GitHubResponse copyResponse(GitHubRequest request, GitHubResponse response)
+            throws IOException {
+        if (response instanceof CachedResponse) {
+            CachedResponse shared = (CachedResponse) response;
+            return createCachedResponse(shared.getConnection(), request, shared.mEntry);
+        }
+        // coalesced requests always use the cache, so anything else has no body
+        return response;
+    }
+
+    private GitHubResponse scheduleGet(GitHubRequest request, String uri, String accept,
+            ApiResponseCache cache, String cacheKey, ApiResponseCache.Entry cached)
+            throws IOException {
+        RequestScheduler scheduler = Gh4Application.get().getRequestScheduler();
+        int priority = getRequestPriority();
+        if (scheduler != null) {
+            long start = System.nanoTime();
+            try {
+                scheduler.acquire(uri, priority, getCancellationToken());
+                getNetworkStats().recordQueueWait(uri, (System.nanoTime() - start) / 1000000);
+            } catch (RequestScheduler.RequestDroppedException e) {
+                if (cached != null && ApiResponseCache.isUsable(uri, cached)) {
+                    return serveFromCache(request, uri, cached);
+                }
+                throw e;
+            }
+        }
+
+        try {
+            return doGet(request, uri, accept, cache, cacheKey, cached);
+        } finally {
+            if (scheduler != null) {
+                scheduler.release(priority);
+            }
+        }
+    }
+
+    private GitHubResponse doGet(GitHubRequest request, String uri, String accept,
+            ApiResponseCache cache, String cacheKey, ApiResponseCache.Entry cached)
+            throws IOException {
+        CancellationToken token = getCancellationToken();
+        int retry = 0;
+
+        while (true) {
+            final HttpURLConnection conn;
+            final int code;
+            try {
+                conn = connect(request, uri, accept, cached);
+                code = conn.getResponseCode();
+            } catch (IOException e) {
+                if (token != null) {
+                    token.throwIfCancelled();
+                }
+                if (RequestRetryPolicy.isRetryable(e) && retry < RequestRetryPolicy.MAX_RETRIES) {
+                    waitForRetry(retry++, token);
+                    continue;
+                }
+                // no network connection, fall back to the cached data if possible
+                if (cached != null && ApiResponseCache.isUsable(uri, cached)) {
+                    return serveFromCache(request, uri, cached);
+                }
+                getNetworkStats().recordFailure(uri);
+                throw e;
+            }
+
+            if (RequestRetryPolicy.isRetryable(code) && retry < RequestRetryPolicy.MAX_RETRIES) {
+                updateRateLimits(conn);
+                releaseConnection(conn, token);
+                waitForRetry(retry++, token);
+                continue;
+            }
+
+            try {
+                return handleGetResponse(conn, code, request, uri, accept,
+                        cache, cacheKey, cached, token);
+            } finally {
+                if (token != null) {
+                    token.unregister(conn);
+                }
+            }
+        }
+    }
+
+    private GitHubResponse handleGetResponse(HttpURLConnection conn, int code,
+            GitHubRequest request, String uri, String accept, ApiResponseCache cache,
+            String cacheKey, ApiResponseCache.Entry cached, CancellationToken token)
+            throws IOException {
+        try {
+            updateRateLimits(conn);
+            if (code == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                return createCachedResponse(conn, request, cached);
+            } else if (isOk(code)) {
+                // don't bother parsing a response nobody is waiting for anymore
+                if (token != null) {
+                    token.throwIfCancelled();
+                }
+                long start = System.nanoTime();
+                ApiRecorder recorder = sRecorder;
+                if (cache == null && recorder == null) {
+                    Object body = getBody(request, getStream(conn));
+                    recordBody(uri, start, conn.getContentLength());
+                    return new GitHubResponse(conn, body);
+                }
+
+                // Decode straight from the (still compressed) network stream, while keeping
+                // a copy of the compressed bytes for the cache and/or recorder
+                String encoding = conn.getHeaderField(HEADER_CONTENT_ENCODING);
+                ByteArrayOutputStream raw =
+                        new ByteArrayOutputStream(Math.max(conn.getContentLength(), 1024));
+                Object body = readBody(request, conn.getInputStream(), encoding, raw);
+                recordBody(uri, start, raw.size());
+
+                byte[] rawBody = raw.toByteArray();
+                if (recorder != null) {
+                    recorder.record(uri, accept, conn, rawBody);
+                }
+                if (cache != null) {
+                    ApiResponseCache.Entry entry = new ApiResponseCache.Entry(
+                            conn.getHeaderField(HEADER_ETAG),
+                            conn.getHeaderField(HEADER_LAST_MODIFIED),
+                            conn.getHeaderField(HEADER_LINK),
+                            encoding, System.currentTimeMillis(), rawBody);
+                    cache.put(cacheKey, entry);
+                    // keeps the raw body, so coalesced requests can decode their own copy
+                    return new CachedResponse(conn, body, entry);
+                }
+                return new GitHubResponse(conn, body);
+            } else if (isEmpty(code)) {
+                return new GitHubResponse(conn, null);
+            }
+            throw createException(getStream(conn), code, conn.getResponseMessage());
+        } catch (IOException e) {
+            // The response body may not have been consumed, so make sure the connection
+            // is released. We don't do that on success, as it would close the socket
+            // instead of returning it to the connection pool.
+            conn.disconnect();
+            if (token != null) {
+                // report reads failing due to the connection being aborted as such
+                token.throwIfCancelled();
+            }
+            if (!(e instanceof RequestException)) {
+                getNetworkStats().recordFailure(uri);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Parses a response body straight from the network stream, while copying the
+     * bytes as received (that is, still compressed) into the given stream.
+     * Package-private for {@link LoaderBenchmark}.
+     */
+    Object readBody(GitHubRequest request, InputStream in, String encoding,
+            ByteArrayOutputStream raw) throws IOException {
+        return getBody(request, decode(new CopyingInputStream(in, raw), encoding));
+    }
+
+    /**
+     * Parses a response body without any further processing, which is how
+     * responses were read before {@link #readBody} existed.
+     * Package-private for {@link LoaderBenchmark}.
+     */
+    Object parseBody(GitHubRequest request, InputStream in) throws IOException {
+        return getBody(request, in);
+    }
+
+    private HttpURLConnection openGet(GitHubRequest request, String uri, String accept,
+            ApiResponseCache.Entry cached) throws IOException {
+        HttpURLConnection conn = createGet(uri);
+        // configureRequest() set the client's default, which may not apply to this endpoint
+        conn.setRequestProperty(HEADER_ACCEPT, accept);
+        if (cached != null) {
+            if (cached.eTag != null) {
+                conn.setRequestProperty(HEADER_IF_NONE_MATCH, cached.eTag);
+            }
+            if (cached.lastModified != null) {
+                conn.setRequestProperty(HEADER_IF_MODIFIED_SINCE, cached.lastModified);
+            }
+        }
+        return conn;
+    }
+
+    /**
+     * Sends a GET request and waits for its response headers. If they take longer
+     * than usual for the endpoint, a second identical request is sent and the
+     * connection of whichever request answers first is returned.
+     */
+    private HttpURLConnection connect(GitHubRequest request, String uri, String accept,
+            ApiResponseCache.Entry cached) throws IOException {
+        CancellationToken token = getCancellationToken();
+        HttpURLConnection conn = openGet(request, uri, accept, cached);
+        long hedgeDelay = isHedgingAllowed() ? sRetryPolicy.getHedgeDelay(uri) : -1;
+        if (hedgeDelay < 0) {
+            try {
+                return new HeaderFetcher(conn, uri).call();
+            } catch (IOException e) {
+                releaseConnection(conn, token);
+                throw e;
+            }
+        }
+
+        CompletionService<HttpURLConnection> completionService =
+                new ExecutorCompletionService<>(sHedgingExecutor);
+        List<HttpURLConnection> pending = new ArrayList<>();
+        HttpURLConnection winner = null;
+        IOException failure = null;
+
+        try {
+            completionService.submit(new HeaderFetcher(conn, uri));
+            pending.add(conn);
+
+            Future<HttpURLConnection> result =
+                    completionService.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+            if (result == null) {
+                HttpURLConnection hedge = openGet(request, uri, accept, cached);
+                completionService.submit(new HeaderFetcher(hedge, uri));
+                pending.add(hedge);
+            }
+
+            for (int i = 0; i < pending.size() && winner == null; i++) {
+                if (result == null) {
+                    result = completionService.take();
+                }
+                try {
+                    winner = result.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    failure = cause instanceof IOException
+                            ? (IOException) cause : new IOException(cause);
+                }
+                result = null;
+            }
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException();
+        } finally {
+            for (HttpURLConnection c : pending) {
+                if (c != winner) {
+                    releaseConnection(c, token);
+                }
+            }
+        }
+
+        if (winner == null) {
+            throw failure;
+        }
+        return winner;
+    }
+
+    private boolean isHedgingAllowed() {
+        // hedging costs rate limit budget, so only do it when the user is waiting
+        RequestScheduler scheduler = Gh4Application.get().getRequestScheduler();
+        return getRequestPriority() == RequestScheduler.PRIORITY_FOREGROUND
+                && (scheduler == null || !scheduler.isThrottling())
+                && sReplayBaseUrl == null && sRecorder == null;
+    }
+
+    private void waitForRetry(int retry, CancellationToken token) throws IOException {
+        try {
+            Thread.sleep(sRetryPolicy.getBackoffDelay(retry));
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+        if (token != null) {
+            token.throwIfCancelled();
+        }
+    }
+
+    private static void releaseConnection(HttpURLConnection conn, CancellationToken token) {
+        conn.disconnect();
+        if (token != null) {
+            token.unregister(conn);
+        }
+    }
+
+    private GitHubResponse serveFromCache(GitHubRequest request, String uri,
+            ApiResponseCache.Entry cached) throws IOException {
+        getNetworkStats().recordCacheHit(uri);
+        return createCachedResponse(null, request, cached);
+    }
+
+    private static NetworkStats getNetworkStats() {
+        return Gh4Application.get().getNetworkStats();
+    }
+
+    private static void recordBody(String uri, long startNanos, long bytes) {
+        long millis = (System.nanoTime() - startNanos) / 1000000;
+        Gh4Application app = Gh4Application.get();
+        app.getNetworkStats().recordBody(uri, millis, bytes);
+        if (sReplayBaseUrl == null) {
+            app.getNetworkPolicy().recordTransfer(millis, bytes);
+        }
+    }
+
+    private GitHubResponse createCachedResponse(HttpURLConnection conn,
+            GitHubRequest request, ApiResponseCache.Entry entry) throws IOException {
+        InputStream in = decode(new ByteArrayInputStream(entry.body), entry.contentEncoding);
+        return new CachedResponse(conn, getBody(request, in), entry);
+    }
+
+    static InputStream decode(InputStream in, String contentEncoding) throws IOException {
+        if ("gzip".equals(contentEncoding)) {
+            return new GZIPInputStream(in);
+        } else if ("deflate".equals(contentEncoding)) {
+            return new InflaterInputStream(in);
+        }
+        return in;
+    }
+
     @Override
     public <V> PageIterator<V> createPageIterator(PagedRequest<V> request) {
+        int pageSize = Gh4Application.get().getNetworkPolicy().getPageSize();
+        if (request.getPageSize() == PagedRequest.PAGE_SIZE && pageSize != PagedRequest.PAGE_SIZE) {
+            // only default sized pages are adapted, explicitly chosen sizes are kept
+            PagedRequest<V> adapted = new PagedRequest<>(request.getPage(), pageSize);
+            adapted.setUri(request.getUri());
+            adapted.setParams(request.getParams());
+            adapted.setType(request.getType());
+            adapted.setArrayType(request.getArrayType());
+            adapted.setResponseContentType(request.getResponseContentType());
+            request = adapted;
+        }
         return new PageIteratorWithSaveableState<>(request, this);
     }
+
+    /**
+     * Input stream which copies all data read from it into an output stream.
+     * When closed, it reads the remaining data of the source stream, so the copy
+     * is complete even if the consumer stopped reading early (e.g. before the
+     * compression trailer).
+     */
+    private static class CopyingInputStream extends FilterInputStream {
+        private final OutputStream mCopy;
+
+        public CopyingInputStream(InputStream in, OutputStream copy) {
+            super(in);
+            mCopy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                mCopy.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            int read = super.read(buffer, offset, count);
+            if (read > 0) {
+                mCopy.write(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(count, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            byte[] buffer = new byte[8192];
+            try {
+                while (read(buffer, 0, buffer.length) != -1) {
+                    // drain
+                }
+            } finally {
+                super.close();
+            }
+        }
+    }
+
+    /**
+     * Waits for the response headers of a connection, keeping track of how long that took.
+     */
+    private static class HeaderFetcher implements Callable<HttpURLConnection> {
+        private final HttpURLConnection mConnection;
+        private final String mUri;
+
+        public HeaderFetcher(HttpURLConnection connection, String uri) {
+            mConnection = connection;
+            mUri = uri;
+        }
+
+        @Override
+        public HttpURLConnection call() throws IOException {
+            long start = System.nanoTime();
+            int code = mConnection.getResponseCode();
+            long duration = (System.nanoTime() - start) / 1000000;
+            sRetryPolicy.recordLatency(mUri, duration);
+            getNetworkStats().recordHeaders(mUri, duration, code);
+            return mConnection;
+        }
+    }
+
+    private static class SharedGet {
+        public final int priority;
+        private final CountDownLatch mDoneLatch = new CountDownLatch(1);
+        private volatile long mCompletionTime = -1;
+        private GitHubResponse mResponse;
+        private IOException mException;
+
+        public SharedGet(int priority) {
+            this.priority = priority;
+        }
+
+        public void complete(GitHubResponse response, IOException exception) {
+            mResponse = response;
+            mException = exception;
+            mCompletionTime = System.currentTimeMillis();
+            mDoneLatch.countDown();
+        }
+
+        public boolean isDone() {
+            return mCompletionTime >= 0;
+        }
+
+        public boolean isExpired(long now) {
+            return isDone() && now - mCompletionTime > COALESCED_RESULT_REUSE_TIME;
+        }
+
+        /**
+         * Waits for the request to complete, or until the given token (if any)
+         * is cancelled, in which case a {@link CancellationToken.CancelledException}
+         * is thrown.
+         */
+        public GitHubResponse await(CancellationToken token) throws IOException {
+            try {
+                if (token == null) {
+                    mDoneLatch.await();
+                } else {
+                    while (!mDoneLatch.await(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+                        token.throwIfCancelled();
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            if (mException != null) {
+                throw mException;
+            }
+            return mResponse;
+        }
+    }
+
+    private static class CachedResponse extends GitHubResponse {
+        private final ApiResponseCache.Entry mEntry;
+
+        public CachedResponse(HttpURLConnection conn, Object body, ApiResponseCache.Entry entry) {
+            super(conn, body);
+            mEntry = entry;
+        }
+
+        public HttpURLConnection getConnection() {
+            return response;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            String value = response != null ? response.getHeaderField(name) : null;
+            if (value == null && HEADER_LINK.equals(name)) {
+                value = mEntry.link;
+            }
+            return value;
+        }
+    }
 }
@@ -22,12 +22,21 @@ import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
 import android.content.pm.ApplicationInfo;
 import android.content.res.Configuration;
 import android.os.Build;
+import android.os.SystemClock;
 import android.text.TextUtils;
 
 import com.crashlytics.android.Crashlytics;
 import com.gh4a.fragment.SettingsFragment;
+import com.gh4a.loader.SearchResultCache;
+import com.gh4a.sync.EventFeedStore;
+import com.gh4a.sync.NotificationStore;
+import com.gh4a.sync.NotificationsJobService;
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
 
 import org.eclipse.egit.github.core.client.GitHubClient;
+import org.eclipse.egit.github.core.okhttp.OkHttpProvider;
 import org.eclipse.egit.github.core.service.CollaboratorService;
 import org.eclipse.egit.github.core.service.CommitService;
 import org.eclipse.egit.github.core.service.ContentsService;
@@ -48,7 +57,11 @@ import org.eclipse.egit.github.core.service.UserService;
 import org.eclipse.egit.github.core.service.WatcherService;
 import org.ocpsoft.prettytime.PrettyTime;
 
+import java.io.File;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.fabric.sdk.android.Fabric;
 
@@ -79,6 +92,13 @@ public class Gh4Application extends Application implements OnSharedPreferenceCha
 
     private static Gh4Application sInstance;
     private GitHubClient mClient;
+    private ApiResponseCache mResponseCache;
+    private RequestScheduler mRequestScheduler;
+    private final NetworkStats mNetworkStats = new NetworkStats();
+    private NetworkPolicy mNetworkPolicy;
+    private NotificationStore mNotificationStore;
+    private EventFeedStore mEventFeedStore;
+    private SearchResultCache mSearchResultCache;
     private HashMap<String, GitHubService> mServices;
     private PrettyTime mPt;
 
@@ -88,8 +108,15 @@ public class Gh4Application extends Application implements OnSharedPreferenceCha
     private static final String KEY_LOGIN = "USER_LOGIN";
     private static final String KEY_TOKEN = "Token";
 
+    // API, avatar and image hosts plus some slack for multiple connections to the API host
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long CONNECTION_KEEP_ALIVE_DURATION = 5 * 60 * 1000;
+
+    private long mStartTime;
+    private final AtomicBoolean mFirstContentShown = new AtomicBoolean();
+
     private static final int MAX_TRACKED_URLS = 5;
-    private static int sNextUrlTrackingPosition = 0;
+    private static final AtomicInteger sNextUrlTrackingPosition = new AtomicInteger();
     private static boolean sHasCrashlytics;
 
     /*
@@ -101,6 +128,7 @@ public class Gh4Application extends Application implements OnSharedPreferenceCha
         super.onCreate();
 
         sInstance = this;
+        mStartTime = SystemClock.elapsedRealtime();
 
         SharedPreferences prefs = getPrefs();
         selectTheme(prefs.getInt(SettingsFragment.KEY_THEME, THEME_LIGHT));
@@ -114,6 +142,19 @@ public class Gh4Application extends Application implements OnSharedPreferenceCha
 
         mPt = new PrettyTime();
 
+        // All HTTP traffic (API, avatars, images, feeds) goes through this client,
+        // so connections to the same host are reused (and multiplexed where possible)
+        OkHttpClient httpClient = OkHttpProvider.getOkHttpClient();
+        httpClient.setConnectionPool(
+                new ConnectionPool(MAX_IDLE_CONNECTIONS, CONNECTION_KEEP_ALIVE_DURATION));
+        httpClient.setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.SPDY_3, Protocol.HTTP_11));
+
+        mResponseCache = new ApiResponseCache(new File(getCacheDir(), "api"));
+        mRequestScheduler = new RequestScheduler();
+        mNetworkPolicy = new NetworkPolicy(this);
+        mNotificationStore = new NotificationStore(getFilesDir());
+        mEventFeedStore = new EventFeedStore(getFilesDir());
+        mSearchResultCache = new SearchResultCache();
         mClient = new DefaultClient();
         mClient.setOAuth2Token(getAuthToken());
 
@@ -135,12 +176,42 @@ public class Gh4Application extends Application implements OnSharedPreferenceCha
         mServices.put(STAR_SERVICE, new StarService(mClient));
         mServices.put(USER_SERVICE, new UserService(mClient));
         mServices.put(WATCHER_SERVICE, new WatcherService(mClient));
+
+        NotificationsJobService.updateSchedule(this, prefs);
     }
 
     public GitHubService getService(String name) {
         return mServices.get(name);
     }
 
+    public ApiResponseCache getResponseCache() {
+        return mResponseCache;
+    }
+
+    public RequestScheduler getRequestScheduler() {
+        return mRequestScheduler;
+    }
+
+    public NetworkStats getNetworkStats() {
+        return mNetworkStats;
+    }
+
+    public NetworkPolicy getNetworkPolicy() {
+        return mNetworkPolicy;
+    }
+
+    public NotificationStore getNotificationStore() {
+        return mNotificationStore;
+    }
+
+    public EventFeedStore getEventFeedStore() {
+        return mEventFeedStore;
+    }
+
+    public SearchResultCache getSearchResultCache() {
+        return mSearchResultCache;
+    }
+
     private void selectTheme(int theme) {
         switch (theme) {
             case THEME_DARK:
@@ -165,14 +236,22 @@ public class Gh4Application extends Application implements OnSharedPreferenceCha
     }
 
     /* package */ static void trackVisitedUrl(String url) {
-        synchronized (Gh4Application.class) {
-            if (sHasCrashlytics) {
-                Crashlytics.setString("github-url-" + sNextUrlTrackingPosition, url);
-                Crashlytics.setInt("last-url-position", sNextUrlTrackingPosition);
-                if (++sNextUrlTrackingPosition >= MAX_TRACKED_URLS) {
-                    sNextUrlTrackingPosition = 0;
-                }
-            }
+        if (sHasCrashlytics) {
+            // called for every request, so avoid serializing the request threads here
+            int position = (sNextUrlTrackingPosition.getAndIncrement() & Integer.MAX_VALUE)
+                    % MAX_TRACKED_URLS;
+            Crashlytics.setString("github-url-" + position, url);
+            Crashlytics.setInt("last-url-position", position);
+        }
+    }
+
+    /**
+     * Called whenever loaded data was delivered to the UI, used for measuring
+     * the time from process start to the first content being shown.
+     */
+    public void onContentShown() {
+        if (mFirstContentShown.compareAndSet(false, true)) {
+            mNetworkStats.recordTimeToFirstContent(SystemClock.elapsedRealtime() - mStartTime);
         }
     }
 
@@ -215,6 +294,13 @@ public class Gh4Application extends Application implements OnSharedPreferenceCha
     public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
         if (key.equals(KEY_TOKEN)) {
             mClient.setOAuth2Token(getAuthToken());
+            mResponseCache.clear();
+            mNotificationStore.clear();
+            mEventFeedStore.clear();
+            mSearchResultCache.clear();
+            NotificationsJobService.updateSchedule(this, sharedPreferences);
+        } else if (key.equals(SettingsFragment.KEY_NOTIFICATIONS)) {
+            NotificationsJobService.updateSchedule(this, sharedPreferences);
         } else if (key.equals(SettingsFragment.KEY_THEME)) {
             selectTheme(sharedPreferences.getInt(key, THEME_LIGHT));
         }
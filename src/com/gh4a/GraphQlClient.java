@@ -0,0 +1,143 @@
+package com.gh4a;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import org.eclipse.egit.github.core.client.GitHubClient;
+import org.eclipse.egit.github.core.client.GsonUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sends queries to the GraphQL API (v4) through the regular API client, so
+ * authentication, cancellation and the replay base URL apply as for REST
+ * requests. Also contains helpers for reading the untyped response.
+ */
+public class GraphQlClient {
+    private static final String ENDPOINT = "/graphql";
+
+    private final GitHubClient mClient;
+
+    public static class GraphQlException extends IOException {
+        public GraphQlException(String message) {
+            super(message);
+        }
+    }
+
+    public GraphQlClient(GitHubClient client) {
+        mClient = client;
+    }
+
+    /**
+     * @return The 'data' member of the response
+     * @throws GraphQlException if the response contains errors
+     */
+    public JsonObject query(String query, Map<String, Object> variables) throws IOException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("query", query);
+        params.put("variables", variables);
+
+        JsonObject response = mClient.post(ENDPOINT, params, JsonObject.class);
+        if (response == null) {
+            throw new GraphQlException("Empty response");
+        }
+        JsonArray errors = getArray(response, "errors");
+        if (errors != null && errors.size() > 0) {
+            String message = getString(errors.get(0).getAsJsonObject(), "message");
+            throw new GraphQlException(message != null ? message : "Query failed");
+        }
+        JsonObject data = getObject(response, "data");
+        if (data == null) {
+            throw new GraphQlException("Response contains no data");
+        }
+        return data;
+    }
+
+    public static JsonObject getObject(JsonObject object, String name) {
+        JsonElement element = object != null ? object.get(name) : null;
+        return element != null && element.isJsonObject() ? element.getAsJsonObject() : null;
+    }
+
+    public static JsonArray getArray(JsonObject object, String name) {
+        JsonElement element = object != null ? object.get(name) : null;
+        return element != null && element.isJsonArray() ? element.getAsJsonArray() : null;
+    }
+
+    /**
+     * @return The objects contained in the given list member
+     */
+    public static List<JsonObject> getObjects(JsonObject object, String name) {
+        JsonArray array = getArray(object, name);
+        if (array == null) {
+            return Collections.emptyList();
+        }
+        List<JsonObject> result = new ArrayList<>(array.size());
+        for (JsonElement element : array) {
+            if (element.isJsonObject()) {
+                result.add(element.getAsJsonObject());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The objects contained in the 'nodes' member of the given connection
+     */
+    public static List<JsonObject> getNodes(JsonObject object, String connectionName) {
+        return getObjects(getObject(object, connectionName), "nodes");
+    }
+
+    public static String getString(JsonObject object, String name) {
+        JsonElement element = object != null ? object.get(name) : null;
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+    }
+
+    /**
+     * @return The value of an enum member in the lower case form used by the REST API
+     */
+    public static String getEnum(JsonObject object, String name) {
+        String value = getString(object, name);
+        return value != null ? value.toLowerCase(Locale.US) : null;
+    }
+
+    public static int getInt(JsonObject object, String name, int defaultValue) {
+        JsonElement element = object != null ? object.get(name) : null;
+        return element != null && element.isJsonPrimitive() ? element.getAsInt() : defaultValue;
+    }
+
+    /**
+     * Use this instead of {@link #getInt} for database ids, which exceed the int range.
+     */
+    public static long getLong(JsonObject object, String name, long defaultValue) {
+        JsonElement element = object != null ? object.get(name) : null;
+        return element != null && element.isJsonPrimitive() ? element.getAsLong() : defaultValue;
+    }
+
+    public static boolean getBoolean(JsonObject object, String name) {
+        JsonElement element = object != null ? object.get(name) : null;
+        return element != null && element.isJsonPrimitive() && element.getAsBoolean();
+    }
+
+    public static Date getDate(JsonObject object, String name) {
+        JsonElement element = object != null ? object.get(name) : null;
+        if (element == null || !element.isJsonPrimitive()) {
+            return null;
+        }
+        return GsonUtils.getGson().fromJson(element, Date.class);
+    }
+
+    /**
+     * @return The 'totalCount' member of the given connection
+     */
+    public static int getTotalCount(JsonObject object, String connectionName) {
+        return getInt(getObject(object, connectionName), "totalCount", 0);
+    }
+}
@@ -0,0 +1,517 @@
+package com.gh4a;
+
+import android.content.Context;
+import android.os.Debug;
+
+import com.gh4a.fragment.TrendingFragment;
+import com.gh4a.holder.Trend;
+import com.gh4a.loader.BaseLoader;
+import com.gh4a.loader.IssueCommentListLoader;
+import com.gh4a.loader.LoaderResult;
+import com.gh4a.loader.NotificationListLoader;
+import com.gh4a.loader.PageIteratorLoader;
+import com.gh4a.loader.PullRequestFilesLoader;
+import com.gh4a.loader.TrendLoader;
+
+import com.google.gson.reflect.TypeToken;
+
+import org.eclipse.egit.github.core.Issue;
+import org.eclipse.egit.github.core.client.GitHubRequest;
+import org.eclipse.egit.github.core.client.PageIterator;
+import org.eclipse.egit.github.core.okhttp.OkHttpProvider;
+import org.eclipse.egit.github.core.service.GitHubService;
+import org.eclipse.egit.github.core.service.IssueService;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Drives a set of loaders against an {@link ApiReplayServer} and measures wall
+ * time, number of requests, transferred bytes and allocations per run. If no fixtures exist yet,
+ * they're recorded from the live API first. The issue and pull request used
+ * are picked from the first page of the repository's issue list, so the same
+ * fixtures always result in the same requests. The trends, which aren't part of
+ * the GitHub API, are downloaded into a fixture of their own.
+ *
+ * Must be run on a background thread.
+ */
+public class LoaderBenchmark {
+    private static final int MAX_ISSUE_LIST_PAGES = 5;
+    private static final String TREND_FIXTURE_NAME = "trends.json";
+    private static final Type ISSUE_LIST_TYPE = new TypeToken<List<Issue>>() {}.getType();
+
+    private final Context mContext;
+    private final File mFixtureDirectory;
+    private final String mRepoOwner;
+    private final String mRepoName;
+    private final long mLatency;
+    private final long mBytesPerSecond;
+    private final int mIterations;
+
+    private int mIssueNumber = -1;
+    private int mPullRequestNumber = -1;
+    private final DefaultClient mDecodeClient = new DefaultClient();
+    private String mDecodeFixtureEncoding;
+    private byte[] mDecodeFixtureBody;
+    private byte[] mTrendFixture;
+    // results of the decoding cases, kept so they can't be optimized away
+    private Object mDecodedBody;
+    private ApiResponseCache.Entry mDecodedEntry;
+
+    public static class Result {
+        public final String name;
+        public int runs;
+        public long totalTime;
+        public long minTime = Long.MAX_VALUE;
+        public long totalRequests;
+        public long totalBodyBytes;
+        public long totalAllocCount;
+        public long totalAllocSize;
+        public Exception error;
+
+        private Result(String name) {
+            this.name = name;
+        }
+
+        public void dump(PrintWriter writer) {
+            writer.println(name);
+            if (error != null) {
+                writer.println("  failed: " + error.getMessage());
+            } else if (runs > 0) {
+                writer.println(String.format(Locale.US,
+                        "  wall time:   avg %dms, min %dms (%d runs)",
+                        totalTime / runs, minTime, runs));
+                writer.println("  requests:    " + totalRequests / runs);
+                writer.println("  transferred: " + totalBodyBytes / runs / 1024 + " KB");
+                writer.println(String.format(Locale.US, "  allocations: %d objects, %d KB",
+                        totalAllocCount / runs, totalAllocSize / runs / 1024));
+            } else {
+                writer.println("  skipped");
+            }
+        }
+    }
+
+    private interface Case {
+        String getName();
+        boolean isApplicable();
+        void run() throws Exception;
+    }
+
+    /**
+     * @param latency Simulated latency per request, in milliseconds
+     * @param bytesPerSecond Simulated bandwidth, 0 for unlimited
+     */
+    public LoaderBenchmark(Context context, File fixtureDirectory, String repoOwner,
+            String repoName, long latency, long bytesPerSecond, int iterations) {
+        mContext = context.getApplicationContext();
+        mFixtureDirectory = fixtureDirectory;
+        mRepoOwner = repoOwner;
+        mRepoName = repoName;
+        mLatency = latency;
+        mBytesPerSecond = bytesPerSecond;
+        mIterations = iterations;
+    }
+
+    public List<Result> run() throws Exception {
+        List<Case> cases = createCases();
+
+        String[] existingFixtures = mFixtureDirectory.list();
+        if (existingFixtures == null || existingFixtures.length == 0) {
+            DefaultClient.setRecorder(new ApiRecorder(mFixtureDirectory));
+            try {
+                for (Case c : cases) {
+                    if (c.isApplicable()) {
+                        c.run();
+                    }
+                }
+            } finally {
+                DefaultClient.setRecorder(null);
+            }
+        }
+
+        ApiReplayServer server = new ApiReplayServer(mFixtureDirectory, mLatency, mBytesPerSecond);
+        List<Result> results = new ArrayList<>();
+        server.start();
+        DefaultClient.setReplayBaseUrl(server.getBaseUrl());
+        try {
+            for (Case c : cases) {
+                results.add(measure(c, server));
+            }
+        } finally {
+            DefaultClient.setReplayBaseUrl(null);
+            server.stop();
+        }
+        return results;
+    }
+
+    @SuppressWarnings("deprecation")
+    private Result measure(Case c, ApiReplayServer server) {
+        Result result = new Result(c.getName());
+        if (!c.isApplicable()) {
+            return result;
+        }
+        try {
+            // warm up code paths and the fixture cache of the server
+            c.run();
+
+            for (int i = 0; i < mIterations; i++) {
+                server.resetCounts();
+                Debug.resetGlobalAllocCount();
+                Debug.resetGlobalAllocSize();
+                Debug.startAllocCounting();
+                long start = System.nanoTime();
+                try {
+                    c.run();
+                } finally {
+                    Debug.stopAllocCounting();
+                }
+                long duration = (System.nanoTime() - start) / 1000000;
+
+                result.runs++;
+                result.totalTime += duration;
+                result.minTime = Math.min(result.minTime, duration);
+                result.totalRequests += server.getRequestCount();
+                result.totalBodyBytes += server.getBodyByteCount();
+                result.totalAllocCount += Debug.getGlobalAllocCount();
+                result.totalAllocSize += Debug.getGlobalAllocSize();
+            }
+        } catch (Exception e) {
+            result.error = e;
+        }
+        return result;
+    }
+
+    private List<Case> createCases() {
+        List<Case> cases = new ArrayList<>();
+        cases.add(createIssueListCase(null));
+        // the media type all requests used before it was chosen per endpoint,
+        // for comparing transferred bytes and allocations with the case above
+        cases.add(createIssueListCase(GitHubService.ACCEPT_FULL));
+        // how DefaultClient and TrendLoader read responses before and after they
+        // stopped buffering the decompressed body
+        cases.add(createDecodeCase(true));
+        cases.add(createDecodeCase(false));
+        cases.add(createTrendCase(true));
+        cases.add(createTrendCase(false));
+        cases.add(new Case() {
+            @Override
+            public String getName() {
+                return "IssueCommentListLoader (#" + mIssueNumber + ")";
+            }
+
+            @Override
+            public boolean isApplicable() {
+                return mIssueNumber > 0;
+            }
+
+            @Override
+            public void run() throws Exception {
+                runLoader(new IssueCommentListLoader(mContext,
+                        mRepoOwner, mRepoName, mIssueNumber));
+            }
+        });
+        cases.add(new Case() {
+            @Override
+            public String getName() {
+                return "PullRequestFilesLoader (#" + mPullRequestNumber + ")";
+            }
+
+            @Override
+            public boolean isApplicable() {
+                return mPullRequestNumber > 0;
+            }
+
+            @Override
+            public void run() throws Exception {
+                runLoader(new PullRequestFilesLoader(mContext,
+                        mRepoOwner, mRepoName, mPullRequestNumber));
+            }
+        });
+        cases.add(new Case() {
+            @Override
+            public String getName() {
+                return "NotificationListLoader";
+            }
+
+            @Override
+            public boolean isApplicable() {
+                return Gh4Application.get().isAuthorized();
+            }
+
+            @Override
+            public void run() throws Exception {
+                runLoader(new NotificationListLoader(mContext, true));
+            }
+        });
+        return cases;
+    }
+
+    /**
+     * @param accept Media type to request, or null for the one chosen by {@link DefaultClient}
+     */
+    private Case createIssueListCase(final String accept) {
+        return new Case() {
+            @Override
+            public String getName() {
+                return "PageIteratorLoader (issues of " + mRepoOwner + "/" + mRepoName
+                        + (accept != null ? ", " + accept : "") + ")";
+            }
+
+            @Override
+            public boolean isApplicable() {
+                return true;
+            }
+
+            @Override
+            public void run() throws Exception {
+                Map<String, String> filterData = new HashMap<>();
+                filterData.put("state", "all");
+                IssueService service = (IssueService)
+                        Gh4Application.get().getService(Gh4Application.ISSUE_SERVICE);
+                PageIterator<Issue> iterator =
+                        service.pageIssues(mRepoOwner, mRepoName, filterData);
+                if (accept != null) {
+                    iterator.getRequest().setResponseContentType(accept);
+                }
+                PageIteratorLoader<Issue> loader = new PageIteratorLoader<>(mContext, iterator);
+
+                PageIteratorLoader<Issue>.LoadedPage page = null;
+                for (int i = 0; i < MAX_ISSUE_LIST_PAGES; i++) {
+                    page = getData(loader.loadInBackground());
+                    if (!page.hasMoreData) {
+                        break;
+                    }
+                }
+                if (accept == null && page != null && page.results.getPageCount() > 0) {
+                    pickTargets(page.results.getPage(0));
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads the largest recorded page of the issue list the way {@link DefaultClient}
+     * handles a response it caches, without any network access.
+     * @param buffered Whether to read it like before responses were parsed straight
+     *                 from the network stream: the body, decompressed by OkHttp, was read
+     *                 into a byte array, which was cached and parsed from there
+     */
+    private Case createDecodeCase(final boolean buffered) {
+        return new Case() {
+            @Override
+            public String getName() {
+                return "Issue list decoding (" + (buffered ? "buffered" : "streaming") + ")";
+            }
+
+            @Override
+            public boolean isApplicable() {
+                return true;
+            }
+
+            @Override
+            public void run() throws Exception {
+                if (mDecodeFixtureBody == null) {
+                    loadDecodeFixture();
+                }
+                GitHubRequest request = new GitHubRequest().setType(ISSUE_LIST_TYPE);
+                InputStream in = new ByteArrayInputStream(mDecodeFixtureBody);
+                long now = System.currentTimeMillis();
+                if (buffered) {
+                    byte[] data = readFully(DefaultClient.decode(in, mDecodeFixtureEncoding));
+                    mDecodedEntry = new ApiResponseCache.Entry(null, null, null, null, now, data);
+                    mDecodedBody = mDecodeClient.parseBody(request, new ByteArrayInputStream(data));
+                } else {
+                    ByteArrayOutputStream raw =
+                            new ByteArrayOutputStream(Math.max(mDecodeFixtureBody.length, 1024));
+                    mDecodedBody = mDecodeClient.readBody(request, in, mDecodeFixtureEncoding, raw);
+                    mDecodedEntry = new ApiResponseCache.Entry(null, null, null,
+                            mDecodeFixtureEncoding, now, raw.toByteArray());
+                }
+            }
+        };
+    }
+
+    /**
+     * Parses the recorded daily trends, without any network access.
+     * @param buffered Whether to parse them like before {@link TrendLoader#readTrends}
+     *                 existed: copied into a string and parsed with org.json
+     */
+    private Case createTrendCase(final boolean buffered) {
+        return new Case() {
+            @Override
+            public String getName() {
+                return "TrendLoader parsing (" + (buffered ? "buffered" : "streaming") + ")";
+            }
+
+            @Override
+            public boolean isApplicable() {
+                return true;
+            }
+
+            @Override
+            public void run() throws Exception {
+                if (mTrendFixture == null) {
+                    loadTrendFixture();
+                }
+                InputStream in = new BufferedInputStream(new ByteArrayInputStream(mTrendFixture));
+                mDecodedBody = buffered ? readTrendsBuffered(in, mTrendFixture.length)
+                        : TrendLoader.readTrends(in);
+            }
+        };
+    }
+
+    private static List<Trend> readTrendsBuffered(InputStream in, int length)
+            throws IOException, JSONException {
+        InputStreamReader reader = new InputStreamReader(in, "UTF-8");
+        CharArrayWriter writer = new CharArrayWriter(Math.max(0, length));
+        char[] tmp = new char[4096];
+
+        int l;
+        while ((l = reader.read(tmp)) != -1) {
+            writer.write(tmp, 0, l);
+        }
+
+        List<Trend> trends = new ArrayList<>();
+        JSONArray resultArray = new JSONArray(writer.toString());
+        for (int i = 0; i < resultArray.length(); i++) {
+            JSONObject repoObject = resultArray.getJSONObject(i);
+
+            trends.add(new Trend(
+                    repoObject.getString("owner"),
+                    repoObject.getString("repo"),
+                    repoObject.optString("description"),
+                    (int) repoObject.getDouble("stars"),
+                    (int) repoObject.getDouble("new_stars"),
+                    (int) repoObject.getDouble("forks")));
+        }
+        return trends;
+    }
+
+    // the trends aren't served by the GitHub API, so they're downloaded once on their own
+    private void loadTrendFixture() throws IOException {
+        File file = new File(mFixtureDirectory, TREND_FIXTURE_NAME);
+        if (file.exists()) {
+            mTrendFixture = readFully(new FileInputStream(file));
+            return;
+        }
+
+        HttpURLConnection connection = OkHttpProvider.getOkHttpClient()
+                .open(TrendLoader.getUrl(TrendingFragment.TYPE_DAILY));
+        if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+            connection.disconnect();
+            throw new IOException("Could not download trends: " + connection.getResponseCode());
+        }
+        byte[] trends = readFully(connection.getInputStream());
+
+        if (!mFixtureDirectory.exists() && !mFixtureDirectory.mkdirs()) {
+            throw new IOException("Could not create " + mFixtureDirectory);
+        }
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(trends);
+        } finally {
+            out.close();
+        }
+        mTrendFixture = trends;
+    }
+
+    private void loadDecodeFixture() throws IOException {
+        String uriPrefix = "X-Recorded-Uri: /repos/" + mRepoOwner + "/" + mRepoName + "/issues?";
+        File[] files = mFixtureDirectory.listFiles();
+        if (files == null) {
+            throw new IOException("No fixtures in " + mFixtureDirectory);
+        }
+
+        long largestSize = -1;
+        for (File file : files) {
+            if (file.getName().equals(TREND_FIXTURE_NAME)) {
+                continue;
+            }
+            InputStream in = new BufferedInputStream(new FileInputStream(file));
+            try {
+                String encoding = null;
+                boolean isIssueList = false;
+                String header;
+                while ((header = ApiReplayServer.readLine(in)) != null && !header.isEmpty()) {
+                    if (header.regionMatches(true, 0, "Content-Encoding:", 0, 17)) {
+                        encoding = header.substring(17).trim();
+                    } else if (header.startsWith(uriPrefix)) {
+                        isIssueList = true;
+                    }
+                }
+                if (!isIssueList || file.length() <= largestSize) {
+                    continue;
+                }
+                mDecodeFixtureEncoding = encoding;
+                mDecodeFixtureBody = readFully(in);
+                largestSize = file.length();
+            } finally {
+                in.close();
+            }
+        }
+        if (mDecodeFixtureBody == null) {
+            throw new IOException("No issue list fixture recorded");
+        }
+    }
+
+    private void pickTargets(List<Issue> issues) {
+        int maxComments = -1;
+        for (Issue issue : issues) {
+            boolean isPullRequest = issue.getPullRequest() != null
+                    && issue.getPullRequest().getHtmlUrl() != null;
+            if (isPullRequest) {
+                if (mPullRequestNumber < 0) {
+                    mPullRequestNumber = issue.getNumber();
+                }
+            } else if (issue.getComments() > maxComments) {
+                maxComments = issue.getComments();
+                mIssueNumber = issue.getNumber();
+            }
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        try {
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return out.toByteArray();
+    }
+
+    private static <T> void runLoader(BaseLoader<T> loader) throws Exception {
+        getData(loader.loadInBackground());
+    }
+
+    private static <T> T getData(LoaderResult<T> result) throws Exception {
+        if (!result.isSuccess()) {
+            throw result.getException();
+        }
+        return result.getData();
+    }
+}
@@ -0,0 +1,169 @@
+package com.gh4a;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.SystemClock;
+import android.telephony.TelephonyManager;
+
+import org.eclipse.egit.github.core.client.PagedRequest;
+
+/**
+ * Classifies the current connection, based on the network type reported by
+ * {@link ConnectivityManager} and the throughput measured for API responses,
+ * and derives how much data the app should spend on it: page sizes, image
+ * resolution, whether to load animated or vector images and how far to
+ * prefetch.
+ */
+public class NetworkPolicy {
+    public static final int CLASS_OFFLINE = 0;
+    // slow (2G, roaming or measured to be slow) connection
+    public static final int CLASS_CONSTRAINED = 1;
+    public static final int CLASS_METERED = 2;
+    public static final int CLASS_UNMETERED = 3;
+
+    private static final long CLASSIFICATION_MAX_AGE = 5000;
+
+    // smaller responses are dominated by latency and don't tell much about bandwidth
+    private static final long MIN_SAMPLE_BYTES = 16 * 1024;
+    private static final float SAMPLE_WEIGHT = 0.3F;
+    private static final int MIN_SAMPLES = 3;
+    private static final float CONSTRAINED_BYTES_PER_SECOND = 32 * 1024;
+
+    private static final int CONSTRAINED_PAGE_SIZE = 30;
+    private static final int METERED_PAGE_SIZE = 50;
+
+    private final Context mContext;
+    private int mClass = -1;
+    private long mClassifiedAt;
+    private String mNetworkKey;
+    private float mBytesPerSecond;
+    private int mSampleCount;
+
+    public NetworkPolicy(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    public synchronized int getConnectionClass() {
+        long now = SystemClock.elapsedRealtime();
+        if (mClass < 0 || now - mClassifiedAt > CLASSIFICATION_MAX_AGE) {
+            mClass = classify();
+            mClassifiedAt = now;
+        }
+        return mClass;
+    }
+
+    /**
+     * Feeds the duration of an API response body download into the
+     * throughput estimate of the current network.
+     */
+    public synchronized void recordTransfer(long millis, long bytes) {
+        if (bytes < MIN_SAMPLE_BYTES || millis <= 0) {
+            return;
+        }
+        float bytesPerSecond = bytes * 1000F / millis;
+        mBytesPerSecond = mSampleCount == 0 ? bytesPerSecond
+                : SAMPLE_WEIGHT * bytesPerSecond + (1 - SAMPLE_WEIGHT) * mBytesPerSecond;
+        mSampleCount++;
+        // make the next query pick up the new estimate
+        mClass = -1;
+    }
+
+    public boolean isUnmetered() {
+        return getConnectionClass() == CLASS_UNMETERED;
+    }
+
+    /**
+     * @return Number of items to request per page for paged API collections
+     */
+    public int getPageSize() {
+        switch (getConnectionClass()) {
+            case CLASS_CONSTRAINED:
+                return CONSTRAINED_PAGE_SIZE;
+            case CLASS_METERED:
+                return METERED_PAGE_SIZE;
+            default:
+                return PagedRequest.PAGE_SIZE;
+        }
+    }
+
+    /**
+     * @return Size in pixels at which images that are available in multiple
+     *         resolutions (e.g. avatars) should be requested
+     */
+    public int getImageSize(int fullSize) {
+        switch (getConnectionClass()) {
+            case CLASS_CONSTRAINED:
+                return fullSize / 2;
+            case CLASS_METERED:
+                return fullSize * 3 / 4;
+            default:
+                return fullSize;
+        }
+    }
+
+    public boolean shouldLoadAnimatedImages() {
+        return isUnmetered();
+    }
+
+    public boolean shouldLoadVectorImages() {
+        return getConnectionClass() > CLASS_CONSTRAINED;
+    }
+
+    /**
+     * @return Number of pages of a list to load ahead of the user
+     */
+    public int getPrefetchDepth(boolean fastScrolling) {
+        switch (getConnectionClass()) {
+            case CLASS_UNMETERED:
+                // only look further ahead if the user is likely to get there
+                return fastScrolling ? 2 : 1;
+            case CLASS_METERED:
+                return 1;
+            default:
+                // don't compete with requests the user is waiting for
+                return 0;
+        }
+    }
+
+    // must be called with the object lock held
+    private int classify() {
+        ConnectivityManager cm =
+                (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo info = cm.getActiveNetworkInfo();
+        if (info == null || !info.isConnected()) {
+            return CLASS_OFFLINE;
+        }
+
+        String networkKey = info.getType() + ":" + info.getSubtype() + ":" + info.getExtraInfo();
+        if (!networkKey.equals(mNetworkKey)) {
+            // measurements of the previous network don't apply anymore
+            mNetworkKey = networkKey;
+            mSampleCount = 0;
+        }
+
+        if (info.isRoaming() || isSlowMobileNetwork(info)) {
+            return CLASS_CONSTRAINED;
+        }
+        if (mSampleCount >= MIN_SAMPLES && mBytesPerSecond < CONSTRAINED_BYTES_PER_SECOND) {
+            return CLASS_CONSTRAINED;
+        }
+        return cm.isActiveNetworkMetered() ? CLASS_METERED : CLASS_UNMETERED;
+    }
+
+    private static boolean isSlowMobileNetwork(NetworkInfo info) {
+        if (info.getType() != ConnectivityManager.TYPE_MOBILE) {
+            return false;
+        }
+        switch (info.getSubtype()) {
+            case TelephonyManager.NETWORK_TYPE_GPRS:
+            case TelephonyManager.NETWORK_TYPE_EDGE:
+            case TelephonyManager.NETWORK_TYPE_CDMA:
+            case TelephonyManager.NETWORK_TYPE_1xRTT:
+            case TelephonyManager.NETWORK_TYPE_IDEN:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.gh4a;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects timing, size and cache statistics of the API requests done by
+ * {@link DefaultClient}, grouped by endpoint (see
+ * {@link RequestRetryPolicy#getEndpoint(String)}). Recording only touches
+ * atomic counters, so it can be done from any thread without locking.
+ *
+ * The time to response headers covers DNS lookup, connection setup and
+ * server processing, as HttpURLConnection doesn't expose these separately.
+ * Since responses are decoded straight from the network stream, the body
+ * time covers both download and parsing.
+ */
+public class NetworkStats {
+    // upper bounds of the histogram buckets, the last bucket takes everything above
+    private static final long[] TIME_BUCKETS = {
+        10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000
+    };
+    private static final long[] SIZE_BUCKETS = {
+        1024, 4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024, 1024 * 1024
+    };
+
+    private final ConcurrentHashMap<String, EndpointStats> mEndpoints = new ConcurrentHashMap<>();
+    private volatile long mStartTime = System.currentTimeMillis();
+    private volatile long mTimeToFirstContent = -1;
+
+    public static class Histogram {
+        private final long[] mBounds;
+        private final AtomicLongArray mCounts;
+        private final AtomicLong mSum = new AtomicLong();
+
+        public Histogram(long[] bounds) {
+            mBounds = bounds;
+            mCounts = new AtomicLongArray(bounds.length + 1);
+        }
+
+        public void record(long value) {
+            int bucket = 0;
+            while (bucket < mBounds.length && value > mBounds[bucket]) {
+                bucket++;
+            }
+            mCounts.incrementAndGet(bucket);
+            mSum.addAndGet(value);
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (int i = 0; i < mCounts.length(); i++) {
+                count += mCounts.get(i);
+            }
+            return count;
+        }
+
+        public long getAverage() {
+            long count = getCount();
+            return count > 0 ? mSum.get() / count : 0;
+        }
+
+        /**
+         * @return Upper bound of the bucket containing the given percentile,
+         *         or -1 if it's in the overflow bucket
+         */
+        public long getPercentile(float percentile) {
+            long count = getCount();
+            long target = (long) Math.ceil(count * percentile);
+            long seen = 0;
+            for (int i = 0; i < mBounds.length; i++) {
+                seen += mCounts.get(i);
+                if (seen >= target) {
+                    return mBounds[i];
+                }
+            }
+            return -1;
+        }
+
+        private String format(String unit) {
+            if (getCount() == 0) {
+                return "-";
+            }
+            return String.format(Locale.US, "avg %d%s, p50 %s, p90 %s, p99 %s",
+                    getAverage(), unit, formatPercentile(0.5F, unit),
+                    formatPercentile(0.9F, unit), formatPercentile(0.99F, unit));
+        }
+
+        private String formatPercentile(float percentile, String unit) {
+            long value = getPercentile(percentile);
+            return value >= 0
+                    ? "<=" + value + unit : ">" + mBounds[mBounds.length - 1] + unit;
+        }
+    }
+
+    public static class EndpointStats {
+        public final Histogram queueWait = new Histogram(TIME_BUCKETS);
+        public final Histogram headerTime = new Histogram(TIME_BUCKETS);
+        public final Histogram bodyTime = new Histogram(TIME_BUCKETS);
+        public final Histogram responseSize = new Histogram(SIZE_BUCKETS);
+        public final AtomicLong notModified = new AtomicLong();
+        public final AtomicLong cacheHits = new AtomicLong();
+        public final AtomicLong failures = new AtomicLong();
+        private final ConcurrentHashMap<Integer, AtomicLong> mStatusCodes =
+                new ConcurrentHashMap<>();
+
+        private void recordStatus(int code) {
+            AtomicLong counter = mStatusCodes.get(code);
+            if (counter == null) {
+                AtomicLong newCounter = new AtomicLong();
+                counter = mStatusCodes.putIfAbsent(code, newCounter);
+                if (counter == null) {
+                    counter = newCounter;
+                }
+            }
+            counter.incrementAndGet();
+        }
+
+        private void dump(PrintWriter writer) {
+            writer.println("  queue wait:   " + queueWait.format("ms"));
+            writer.println("  headers:      " + headerTime.format("ms"));
+            writer.println("  body:         " + bodyTime.format("ms"));
+            writer.println("  size:         " + responseSize.format("B"));
+            writer.println("  304s:         " + notModified.get());
+            writer.println("  cache hits:   " + cacheHits.get());
+            writer.println("  failures:     " + failures.get());
+
+            List<Integer> codes = new ArrayList<>(mStatusCodes.keySet());
+            Collections.sort(codes);
+            StringBuilder sb = new StringBuilder();
+            for (Integer code : codes) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(code).append(": ").append(mStatusCodes.get(code).get());
+            }
+            writer.println("  status codes: " + (sb.length() > 0 ? sb : "-"));
+        }
+    }
+
+    public void recordQueueWait(String uri, long millis) {
+        getStats(uri).queueWait.record(millis);
+    }
+
+    public void recordHeaders(String uri, long millis, int code) {
+        EndpointStats stats = getStats(uri);
+        stats.headerTime.record(millis);
+        stats.recordStatus(code);
+        if (code == 304) {
+            stats.notModified.incrementAndGet();
+        }
+    }
+
+    public void recordBody(String uri, long millis, long bytes) {
+        EndpointStats stats = getStats(uri);
+        stats.bodyTime.record(millis);
+        if (bytes >= 0) {
+            stats.responseSize.record(bytes);
+        }
+    }
+
+    /**
+     * Records a request that was answered from the response cache without
+     * talking to the server (offline, cache-only or dropped requests).
+     */
+    public void recordCacheHit(String uri) {
+        getStats(uri).cacheHits.incrementAndGet();
+    }
+
+    public void recordFailure(String uri) {
+        getStats(uri).failures.incrementAndGet();
+    }
+
+    /**
+     * Records the time from process start until the first loaded data was shown.
+     */
+    public void recordTimeToFirstContent(long millis) {
+        mTimeToFirstContent = millis;
+    }
+
+    public void reset() {
+        mEndpoints.clear();
+        mStartTime = System.currentTimeMillis();
+    }
+
+    public void dump(PrintWriter writer) {
+        if (mTimeToFirstContent >= 0) {
+            writer.println("Time to first content: " + mTimeToFirstContent + "ms");
+        }
+        writer.println("Recording since " + new Date(mStartTime));
+        List<String> endpoints = new ArrayList<>(mEndpoints.keySet());
+        Collections.sort(endpoints);
+        for (String endpoint : endpoints) {
+            writer.println();
+            writer.println(endpoint);
+            mEndpoints.get(endpoint).dump(writer);
+        }
+    }
+
+    public Map<String, EndpointStats> getEndpointStats() {
+        return Collections.unmodifiableMap(mEndpoints);
+    }
+
+    private EndpointStats getStats(String uri) {
+        String endpoint = RequestRetryPolicy.getEndpoint(uri);
+        EndpointStats stats = mEndpoints.get(endpoint);
+        if (stats == null) {
+            EndpointStats newStats = new EndpointStats();
+            stats = mEndpoints.putIfAbsent(endpoint, newStats);
+            if (stats == null) {
+                stats = newStats;
+            }
+        }
+        return stats;
+    }
+}
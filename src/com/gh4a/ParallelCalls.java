@@ -0,0 +1,106 @@
+package com.gh4a;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Runs independent API calls concurrently on a bounded executor. The calls
+ * act on behalf of the calling thread, so they inherit its request priority,
+ * cache-only mode and cancellation token.
+ * If a call hasn't been started yet when its result is requested via
+ * {@link #get(Future)}, it's run on the requesting thread instead of waiting
+ * for the executor. This keeps calls that fan out themselves from blocking
+ * each other when all executor threads are busy.
+ * {@link #cancel()} must be called when done, so calls whose results aren't
+ * needed anymore (e.g. because another one failed) are stopped.
+ */
+public class ParallelCalls {
+    private static final int MAX_PARALLEL_CALLS = 4;
+
+    private static final ExecutorService sExecutor =
+            Executors.newFixedThreadPool(MAX_PARALLEL_CALLS);
+
+    private final Executor mExecutor;
+    private final List<FutureTask<?>> mTasks = new ArrayList<>();
+
+    public ParallelCalls() {
+        this(sExecutor);
+    }
+
+    ParallelCalls(Executor executor) {
+        mExecutor = executor;
+    }
+
+    public <V> Future<V> submit(Callable<V> call) {
+        FutureTask<V> task = new FutureTask<>(new InheritingCallable<>(call));
+        mTasks.add(task);
+        mExecutor.execute(task);
+        return task;
+    }
+
+    /**
+     * Waits for the result of a call submitted to this instance.
+     */
+    public <V> V get(Future<V> future) throws IOException {
+        // no-op if the call was started already
+        ((FutureTask<V>) future).run();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    public void cancel() {
+        for (FutureTask<?> task : mTasks) {
+            task.cancel(true);
+        }
+    }
+
+    private static class InheritingCallable<V> implements Callable<V> {
+        private final Callable<V> mCall;
+        private final int mPriority = DefaultClient.getRequestPriority();
+        private final boolean mCacheOnly = DefaultClient.isCacheOnly();
+        private final CancellationToken mCancellationToken = DefaultClient.getCancellationToken();
+
+        public InheritingCallable(Callable<V> call) {
+            mCall = call;
+        }
+
+        @Override
+        public V call() throws Exception {
+            // restore the previous settings afterwards, as we might run on the
+            // thread waiting for the result
+            int priority = DefaultClient.getRequestPriority();
+            boolean cacheOnly = DefaultClient.isCacheOnly();
+            CancellationToken cancellationToken = DefaultClient.getCancellationToken();
+            DefaultClient.setRequestPriority(mPriority);
+            DefaultClient.setCacheOnly(mCacheOnly);
+            DefaultClient.setCancellationToken(mCancellationToken);
+            try {
+                return mCall.call();
+            } finally {
+                DefaultClient.setRequestPriority(priority);
+                DefaultClient.setCacheOnly(cacheOnly);
+                DefaultClient.setCancellationToken(cancellationToken);
+            }
+        }
+    }
+}
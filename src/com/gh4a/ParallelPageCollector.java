@@ -0,0 +1,131 @@
+package com.gh4a;
+
+import org.eclipse.egit.github.core.client.GitHubClient;
+import org.eclipse.egit.github.core.client.GitHubResponse;
+import org.eclipse.egit.github.core.client.NoSuchPageException;
+import org.eclipse.egit.github.core.client.PageIterator;
+import org.eclipse.egit.github.core.client.PagedRequest;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fetches all pages of a paged collection. After the first page has been
+ * loaded sequentially, the number of the last page is known from the Link
+ * header, so all remaining pages are requested concurrently and reassembled
+ * in order afterwards.
+ */
+public class ParallelPageCollector {
+    private static final int MAX_PARALLEL_REQUESTS = 4;
+
+    private static final ExecutorService sExecutor =
+            Executors.newFixedThreadPool(MAX_PARALLEL_REQUESTS);
+
+    private ParallelPageCollector() {
+    }
+
+    public static <V> List<V> getAll(GitHubClient client, String uri, Type type)
+            throws IOException {
+        PagedRequest<V> request = new PagedRequest<>(PagedRequest.PAGE_FIRST, PagedRequest.PAGE_SIZE);
+        request.setUri(uri);
+        request.setType(type);
+        return getAll(client, new PageIterator<>(request, client));
+    }
+
+    public static <V> List<V> getAll(GitHubClient client, PageIterator<V> iterator)
+            throws IOException {
+        // take a copy of the initial request, as the iterator modifies it
+        PagedRequest<V> request = iterator.getRequest();
+        PagedRequest<V> template = new PagedRequest<>(request.getPage(), request.getPageSize());
+        template.setUri(request.getUri());
+        template.setParams(request.getParams());
+        template.setType(request.getType());
+        template.setArrayType(request.getArrayType());
+        template.setResponseContentType(request.getResponseContentType());
+
+        List<V> result = new ArrayList<>();
+        if (!iterator.hasNext()) {
+            return result;
+        }
+        result.addAll(next(iterator));
+
+        int firstPage = iterator.getNextPage();
+        int lastPage = iterator.getLastPage();
+        if (!iterator.hasNext() || firstPage < 1 || lastPage < firstPage) {
+            // no (usable) last page link, walk the remaining pages one by one
+            while (iterator.hasNext()) {
+                result.addAll(next(iterator));
+            }
+            return result;
+        }
+
+        result.addAll(getPages(client, template, firstPage, lastPage));
+        return result;
+    }
+
+    /**
+     * Fetches the given range of pages concurrently.
+     *
+     * @param template Request whose URI, parameters, types and page size are used
+     * @return Contents of the pages, in order
+     */
+    public static <V> List<V> getPages(GitHubClient client, PagedRequest<V> template,
+            int firstPage, int lastPage) throws IOException {
+        List<V> result = new ArrayList<>();
+        ParallelCalls calls = new ParallelCalls(sExecutor);
+        try {
+            List<Future<Collection<V>>> futures = new ArrayList<>();
+            for (int page = firstPage; page <= lastPage; page++) {
+                PagedRequest<V> request = new PagedRequest<>(page, template.getPageSize());
+                request.setUri(template.getUri());
+                request.setParams(template.getParams());
+                request.setType(template.getType());
+                request.setArrayType(template.getArrayType());
+                request.setResponseContentType(template.getResponseContentType());
+                futures.add(calls.submit(new PageFetcher<>(client, request)));
+            }
+            for (Future<Collection<V>> future : futures) {
+                result.addAll(calls.get(future));
+            }
+        } finally {
+            calls.cancel();
+        }
+
+        return result;
+    }
+
+    private static <V> Collection<V> next(PageIterator<V> iterator) throws IOException {
+        try {
+            return iterator.next();
+        } catch (NoSuchPageException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class PageFetcher<V> implements Callable<Collection<V>> {
+        private final GitHubClient mClient;
+        private final PagedRequest<V> mRequest;
+
+        public PageFetcher(GitHubClient client, PagedRequest<V> request) {
+            mClient = client;
+            mRequest = request;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Collection<V> call() throws IOException {
+            GitHubResponse response = mClient.get(mRequest);
+            Object body = response.getBody();
+            return body instanceof Collection
+                    ? (Collection<V>) body : Collections.<V>emptyList();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.gh4a;
+
+import org.eclipse.egit.github.core.client.RequestException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether and when idempotent requests are retried or hedged.
+ * Transient failures (server errors, reset or timed out connections) are
+ * retried with exponential backoff and full jitter. Additionally, the time
+ * to response headers is tracked per endpoint, so that a second request can
+ * be sent when the first one is slower than most requests to that endpoint.
+ */
+public class RequestRetryPolicy {
+    public static final int MAX_RETRIES = 2;
+
+    private static final long BASE_BACKOFF = 500;
+    private static final long MAX_BACKOFF = 8000;
+
+    // number of latency samples kept per endpoint
+    private static final int SAMPLE_COUNT = 50;
+    // minimum number of samples needed before requests to an endpoint are hedged
+    private static final int MIN_SAMPLES_FOR_HEDGING = 10;
+    // hedge requests that are slower than this fraction of previous requests
+    private static final float HEDGE_PERCENTILE = 0.95F;
+    private static final long MIN_HEDGE_DELAY = 500;
+    private static final long MAX_HEDGE_DELAY = 10000;
+
+    private static final Pattern REPO_PATTERN = Pattern.compile("^/repos/[^/]+/[^/]+");
+    private static final Pattern USER_PATTERN = Pattern.compile("^/(users|orgs)/[^/]+");
+    private static final Pattern ID_PATTERN = Pattern.compile("/[0-9]+(?=/|$)");
+    private static final Pattern SHA_PATTERN = Pattern.compile("/[0-9a-f]{40}(?=/|$)");
+
+    private final HashMap<String, Samples> mSamples = new HashMap<>();
+    private final Random mRandom = new Random();
+
+    private static class Samples {
+        final long[] values = new long[SAMPLE_COUNT];
+        int count;
+        int next;
+
+        void add(long value) {
+            values[next] = value;
+            next = (next + 1) % values.length;
+            if (count < values.length) {
+                count++;
+            }
+        }
+
+        long getPercentile(float percentile) {
+            long[] sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            return sorted[Math.min(count - 1, (int) (count * percentile))];
+        }
+    }
+
+    /**
+     * Maps a request URI to the endpoint it belongs to by stripping the query
+     * and replacing owner, repository and user names as well as IDs and SHAs
+     * with placeholders, e.g. /repos/:owner/:repo/issues/:id
+     */
+    public static String getEndpoint(String uri) {
+        int queryPos = uri.indexOf('?');
+        String path = queryPos >= 0 ? uri.substring(0, queryPos) : uri;
+        path = REPO_PATTERN.matcher(path).replaceFirst("/repos/:owner/:repo");
+        path = USER_PATTERN.matcher(path).replaceFirst("/$1/:name");
+        path = SHA_PATTERN.matcher(path).replaceAll("/:sha");
+        return ID_PATTERN.matcher(path).replaceAll("/:id");
+    }
+
+    public static boolean isRetryable(int code) {
+        return code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    public static boolean isRetryable(IOException e) {
+        if (e instanceof RequestException || e instanceof CancellationToken.CancelledException) {
+            return false;
+        }
+        // a timeout is an InterruptedIOException, too, but interruptions are final
+        if (e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException)) {
+            return false;
+        }
+        // unknown hosts etc. mean we're offline, a retry won't help there
+        return e instanceof SocketException || e instanceof SocketTimeoutException
+                || e instanceof EOFException;
+    }
+
+    /**
+     * @return Time to wait before the given retry (starting at 0)
+     */
+    public long getBackoffDelay(int retry) {
+        long maxDelay = Math.min(MAX_BACKOFF, BASE_BACKOFF << retry);
+        synchronized (mRandom) {
+            return (long) (mRandom.nextDouble() * maxDelay);
+        }
+    }
+
+    public void recordLatency(String uri, long millis) {
+        String endpoint = getEndpoint(uri);
+        synchronized (mSamples) {
+            Samples samples = mSamples.get(endpoint);
+            if (samples == null) {
+                samples = new Samples();
+                mSamples.put(endpoint, samples);
+            }
+            samples.add(millis);
+        }
+    }
+
+    /**
+     * @return Time after which a second request should be sent if the first one
+     *         didn't produce response headers yet, or -1 if the endpoint
+     *         shouldn't be hedged (yet)
+     */
+    public long getHedgeDelay(String uri) {
+        String endpoint = getEndpoint(uri);
+        synchronized (mSamples) {
+            Samples samples = mSamples.get(endpoint);
+            if (samples == null || samples.count < MIN_SAMPLES_FOR_HEDGING) {
+                return -1;
+            }
+            long delay = samples.getPercentile(HEDGE_PERCENTILE);
+            return Math.max(MIN_HEDGE_DELAY, Math.min(MAX_HEDGE_DELAY, delay));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.gh4a;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of the rate limit budget of the core and search API buckets and
+ * gates outgoing requests according to their priority. Foreground requests are
+ * always let through, while prefetch and background requests are limited in
+ * concurrency, yield to queued requests of higher priority and are delayed
+ * (or dropped if the budget won't be replenished soon) once the remaining
+ * budget falls below a certain fraction of the limit.
+ */
+public class RequestScheduler {
+    public static final int PRIORITY_FOREGROUND = 0;
+    public static final int PRIORITY_PREFETCH = 1;
+    public static final int PRIORITY_BACKGROUND = 2;
+
+    private static final int[] MAX_CONCURRENT_REQUESTS = { Integer.MAX_VALUE, 4, 2 };
+    private static final float[] MIN_REMAINING_FRACTION = { 0F, 0.1F, 0.25F };
+    private static final long MAX_DELAY = 60 * 1000;
+    // how often delayed requests check whether they were cancelled meanwhile
+    private static final long CANCEL_CHECK_INTERVAL = 500;
+
+    private static final String HEADER_LIMIT = "X-RateLimit-Limit";
+    private static final String HEADER_REMAINING = "X-RateLimit-Remaining";
+    private static final String HEADER_RESET = "X-RateLimit-Reset";
+    private static final String HEADER_RESOURCE = "X-RateLimit-Resource";
+
+    private static final String RESOURCE_CORE = "core";
+    private static final String RESOURCE_SEARCH = "search";
+    private static final String RESOURCE_GRAPHQL = "graphql";
+
+    public interface ThrottleListener {
+        void onThrottleStateChanged(boolean throttling);
+    }
+
+    public static class RequestDroppedException extends IOException {
+        public RequestDroppedException(String uri) {
+            super("Dropped low priority request to " + uri + " due to exhausted rate limit");
+        }
+    }
+
+    public static class Bucket {
+        private int mLimit = -1;
+        private int mRemaining = -1;
+        private long mResetTime;
+
+        public int getLimit() {
+            return mLimit;
+        }
+
+        public int getRemaining() {
+            return mRemaining;
+        }
+
+        public long getResetTime() {
+            return mResetTime;
+        }
+
+        /**
+         * @return -1 if a request with the given priority should be dropped,
+         *         otherwise the number of milliseconds it should be delayed
+         */
+        private long getDelay(int priority, long now) {
+            if (mLimit <= 0 || mRemaining < 0 || mResetTime <= now) {
+                // budget unknown or already replenished
+                return 0;
+            }
+            if (priority == PRIORITY_FOREGROUND
+                    || mRemaining > mLimit * MIN_REMAINING_FRACTION[priority]) {
+                return 0;
+            }
+            long delay = mResetTime - now;
+            return delay <= MAX_DELAY ? delay : -1;
+        }
+
+        private boolean isThrottling(long now) {
+            return getDelay(PRIORITY_BACKGROUND, now) != 0;
+        }
+
+        private void update(HttpURLConnection conn) {
+            mLimit = (int) parseHeader(conn, HEADER_LIMIT, mLimit);
+            mRemaining = (int) parseHeader(conn, HEADER_REMAINING, mRemaining);
+            long reset = parseHeader(conn, HEADER_RESET, -1);
+            if (reset > 0) {
+                mResetTime = reset * 1000;
+            }
+        }
+    }
+
+    private final Bucket mCoreBucket = new Bucket();
+    private final Bucket mSearchBucket = new Bucket();
+    // only tracked for display, GraphQL requests don't go through the scheduler
+    private final Bucket mGraphQlBucket = new Bucket();
+    private final int[] mRunning = new int[MAX_CONCURRENT_REQUESTS.length];
+    private final int[] mWaiting = new int[MAX_CONCURRENT_REQUESTS.length];
+    private final List<ThrottleListener> mListeners = new ArrayList<>();
+    private boolean mThrottling;
+
+    public synchronized Bucket getCoreBucket() {
+        return mCoreBucket;
+    }
+
+    public synchronized Bucket getSearchBucket() {
+        return mSearchBucket;
+    }
+
+    public synchronized Bucket getGraphQlBucket() {
+        return mGraphQlBucket;
+    }
+
+    public synchronized boolean isThrottling() {
+        long now = System.currentTimeMillis();
+        return mCoreBucket.isThrottling(now) || mSearchBucket.isThrottling(now);
+    }
+
+    public synchronized void addThrottleListener(ThrottleListener listener) {
+        mListeners.add(listener);
+    }
+
+    public synchronized void removeThrottleListener(ThrottleListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * @return Whether a search request with the given priority would currently
+     *         be sent right away, instead of being delayed or dropped
+     */
+    public synchronized boolean isSearchAvailable(int priority) {
+        return mSearchBucket.getDelay(priority, System.currentTimeMillis()) == 0;
+    }
+
+    /**
+     * Blocks until a request to the given URI with the given priority may be
+     * executed, or until the given token (if any) is cancelled. Every successful
+     * call must be paired with a call to {@link #release(int)}.
+     */
+    public synchronized void acquire(String uri, int priority, CancellationToken token)
+            throws IOException {
+        Bucket bucket = uri.startsWith("/" + RESOURCE_SEARCH + "/") ? mSearchBucket : mCoreBucket;
+
+        mWaiting[priority]++;
+        if (token != null) {
+            token.setQueued(true);
+        }
+        try {
+            while (true) {
+                if (token != null) {
+                    token.throwIfCancelled();
+                }
+                long delay = bucket.getDelay(priority, System.currentTimeMillis());
+                if (delay < 0) {
+                    throw new RequestDroppedException(uri);
+                } else if (delay == 0 && canRun(priority)) {
+                    break;
+                }
+                if (token != null && (delay == 0 || delay > CANCEL_CHECK_INTERVAL)) {
+                    delay = CANCEL_CHECK_INTERVAL;
+                }
+                wait(delay);
+            }
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        } finally {
+            mWaiting[priority]--;
+            if (token != null) {
+                token.setQueued(false);
+            }
+        }
+
+        mRunning[priority]++;
+    }
+
+    public synchronized void release(int priority) {
+        mRunning[priority]--;
+        notifyAll();
+    }
+
+    public void update(HttpURLConnection conn) {
+        final List<ThrottleListener> listeners;
+        final boolean throttling;
+
+        synchronized (this) {
+            String resource = conn.getHeaderField(HEADER_RESOURCE);
+            if (resource == null) {
+                String path = conn.getURL().getPath();
+                resource = path.startsWith("/" + RESOURCE_SEARCH + "/")
+                        ? RESOURCE_SEARCH : RESOURCE_CORE;
+            }
+            final Bucket bucket;
+            if (RESOURCE_CORE.equals(resource)) {
+                bucket = mCoreBucket;
+            } else if (RESOURCE_SEARCH.equals(resource)) {
+                bucket = mSearchBucket;
+            } else if (RESOURCE_GRAPHQL.equals(resource)) {
+                bucket = mGraphQlBucket;
+            } else {
+                // other resources have budgets of their own that don't matter here
+                return;
+            }
+            bucket.update(conn);
+            notifyAll();
+
+            throttling = isThrottling();
+            if (throttling == mThrottling) {
+                return;
+            }
+            mThrottling = throttling;
+            listeners = new ArrayList<>(mListeners);
+        }
+
+        for (ThrottleListener listener : listeners) {
+            listener.onThrottleStateChanged(throttling);
+        }
+    }
+
+    private boolean canRun(int priority) {
+        if (mRunning[priority] >= MAX_CONCURRENT_REQUESTS[priority]) {
+            return false;
+        }
+        for (int i = 0; i < priority; i++) {
+            if (mWaiting[i] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseHeader(HttpURLConnection conn, String name, long defaultValue) {
+        String value = conn.getHeaderField(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
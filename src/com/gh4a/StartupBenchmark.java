@@ -0,0 +1,127 @@
+package com.gh4a;
+
+import android.os.SystemClock;
+
+import org.eclipse.egit.github.core.User;
+import org.eclipse.egit.github.core.okhttp.OkHttpProvider;
+import org.eclipse.egit.github.core.service.UserService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the time to first content of simulated cold starts with and
+ * without {@link ConnectionPrewarmer}. Each run empties the connection pool,
+ * waits for a fixed delay standing in for the app's own startup work and then
+ * loads what the home screen needs first (the user and their avatar), with
+ * pre-warming optionally started at the beginning of the delay.
+ * Runs against the live API. The resolver cache of the system can't be
+ * cleared, so runs are spaced out to let the runtime's DNS cache expire.
+ *
+ * Must be run on a background thread.
+ */
+public class StartupBenchmark {
+    private static final long DNS_CACHE_EXPIRY = 5000;
+
+    private final String mStartPage;
+    private final long mStartupDelay;
+    private final int mIterations;
+
+    public static class Result {
+        public final String name;
+        public final List<Long> times = new ArrayList<>();
+        public Exception error;
+
+        private Result(String name) {
+            this.name = name;
+        }
+
+        public void dump(PrintWriter writer) {
+            writer.println(name);
+            if (error != null) {
+                writer.println("  failed: " + error.getMessage());
+            } else if (!times.isEmpty()) {
+                List<Long> sorted = new ArrayList<>(times);
+                Collections.sort(sorted);
+                long total = 0;
+                for (long time : sorted) {
+                    total += time;
+                }
+                writer.println(String.format(Locale.US,
+                        "  time to first content: avg %dms, median %dms, min %dms (%d runs)",
+                        total / sorted.size(), sorted.get(sorted.size() / 2), sorted.get(0),
+                        sorted.size()));
+            } else {
+                writer.println("  skipped");
+            }
+        }
+    }
+
+    /**
+     * @param startPage Start page whose connections are pre-warmed
+     * @param startupDelay Time between process start and the first request, in milliseconds
+     */
+    public StartupBenchmark(String startPage, long startupDelay, int iterations) {
+        mStartPage = startPage;
+        mStartupDelay = startupDelay;
+        mIterations = iterations;
+    }
+
+    public List<Result> run() throws InterruptedException {
+        Result cold = new Result("Startup, cold connections");
+        Result warm = new Result("Startup, pre-warmed connections");
+        if (!Gh4Application.get().isAuthorized()) {
+            return Arrays.asList(cold, warm);
+        }
+
+        // alternate between both variants to even out changes in network conditions
+        for (int i = 0; i < mIterations && cold.error == null && warm.error == null; i++) {
+            measure(cold, false);
+            measure(warm, true);
+        }
+        return Arrays.asList(cold, warm);
+    }
+
+    private void measure(Result result, boolean prewarm) throws InterruptedException {
+        Thread.sleep(DNS_CACHE_EXPIRY);
+        OkHttpProvider.getOkHttpClient().getConnectionPool().evictAll();
+
+        long start = SystemClock.elapsedRealtime();
+        if (prewarm) {
+            ConnectionPrewarmer.prewarm(mStartPage);
+        }
+        Thread.sleep(mStartupDelay);
+        try {
+            loadFirstContent();
+            result.times.add(SystemClock.elapsedRealtime() - start);
+        } catch (IOException e) {
+            result.error = e;
+        }
+    }
+
+    private void loadFirstContent() throws IOException {
+        UserService userService = (UserService)
+                Gh4Application.get().getService(Gh4Application.USER_SERVICE);
+        User user = userService.getUser();
+
+        HttpURLConnection connection =
+                OkHttpProvider.getOkHttpClient().open(new URL(user.getAvatarUrl()));
+        InputStream in = connection.getInputStream();
+        try {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) > 0) {
+                // discard, only the transfer time matters
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
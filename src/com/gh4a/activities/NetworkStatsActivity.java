@@ -0,0 +1,215 @@
+package com.gh4a.activities;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.support.design.widget.Snackbar;
+import android.support.v7.app.ActionBar;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+
+import com.gh4a.BackgroundTask;
+import com.gh4a.BaseActivity;
+import com.gh4a.Gh4Application;
+import com.gh4a.LoaderBenchmark;
+import com.gh4a.R;
+import com.gh4a.RequestScheduler;
+import com.gh4a.StartupBenchmark;
+import com.gh4a.activities.home.HomeActivity;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Debug screen showing the statistics collected by {@link com.gh4a.NetworkStats}
+ * and running the {@link LoaderBenchmark} and {@link StartupBenchmark}.
+ * Reachable by long pressing the copyright notice in the about dialog.
+ */
+public class NetworkStatsActivity extends BaseActivity {
+    public static Intent makeIntent(Context context) {
+        return new Intent(context, NetworkStatsActivity.class);
+    }
+
+    private static final int BENCHMARK_ITERATIONS = 5;
+    // rough time between process start and the first request of the home screen
+    private static final long SIMULATED_STARTUP_DELAY = 300;
+
+    private TextView mStatsView;
+    private BenchmarkTask mBenchmarkTask;
+    private String mBenchmarkResults;
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        setContentView(R.layout.network_stats);
+
+        ActionBar actionBar = getSupportActionBar();
+        actionBar.setTitle(R.string.network_stats_title);
+        actionBar.setDisplayHomeAsUpEnabled(true);
+
+        mStatsView = (TextView) findViewById(R.id.stats);
+        updateStats();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.network_stats_menu, menu);
+        return super.onCreateOptionsMenu(menu);
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        switch (item.getItemId()) {
+            case R.id.export:
+                exportStats();
+                return true;
+            case R.id.benchmark:
+                if (mBenchmarkTask == null) {
+                    mBenchmarkTask = new BenchmarkTask();
+                    mBenchmarkTask.schedule();
+                    Snackbar.make(getRootLayout(), R.string.network_stats_benchmark_running,
+                            Snackbar.LENGTH_LONG).show();
+                }
+                return true;
+            case R.id.reset:
+                Gh4Application.get().getNetworkStats().reset();
+                updateStats();
+                return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (mBenchmarkTask != null) {
+            mBenchmarkTask.abort();
+        }
+    }
+
+    @Override
+    public void onRefresh() {
+        updateStats();
+        super.onRefresh();
+    }
+
+    private void updateStats() {
+        mStatsView.setText(buildStatsText());
+    }
+
+    private String buildStatsText() {
+        Gh4Application app = Gh4Application.get();
+        RequestScheduler scheduler = app.getRequestScheduler();
+        StringWriter sw = new StringWriter();
+        PrintWriter writer = new PrintWriter(sw);
+
+        dumpBucket(writer, "Core rate limit", scheduler.getCoreBucket());
+        dumpBucket(writer, "Search rate limit", scheduler.getSearchBucket());
+        dumpBucket(writer, "GraphQL rate limit", scheduler.getGraphQlBucket());
+        writer.println();
+        app.getNetworkStats().dump(writer);
+        if (mBenchmarkResults != null) {
+            writer.println();
+            writer.print(mBenchmarkResults);
+        }
+        writer.flush();
+
+        return sw.toString();
+    }
+
+    private void dumpBucket(PrintWriter writer, String name, RequestScheduler.Bucket bucket) {
+        if (bucket.getLimit() < 0) {
+            writer.println(name + ": unknown");
+        } else {
+            writer.println(name + ": " + bucket.getRemaining() + "/" + bucket.getLimit()
+                    + ", reset at " + new Date(bucket.getResetTime()));
+        }
+    }
+
+    private File getOutputDirectory() {
+        File dir = getExternalFilesDir(null);
+        return dir != null ? dir : getFilesDir();
+    }
+
+    private void exportStats() {
+        File file = new File(getOutputDirectory(),
+                "network-stats-" + System.currentTimeMillis() + ".txt");
+        FileWriter writer = null;
+        int messageResId = R.string.network_stats_exported;
+
+        try {
+            writer = new FileWriter(file);
+            writer.write(buildStatsText());
+        } catch (IOException e) {
+            messageResId = R.string.network_stats_export_failed;
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    messageResId = R.string.network_stats_export_failed;
+                }
+            }
+        }
+
+        Snackbar.make(getRootLayout(), getString(messageResId, file.getPath()),
+                Snackbar.LENGTH_LONG).show();
+    }
+
+    private class BenchmarkTask extends BackgroundTask<String> {
+        public BenchmarkTask() {
+            super(NetworkStatsActivity.this);
+        }
+
+        @Override
+        protected String run() throws Exception {
+            // fixtures are recorded from the live API on the first run
+            File fixtureDir = new File(getOutputDirectory(), "api-fixtures");
+            LoaderBenchmark benchmark = new LoaderBenchmark(getContext(), fixtureDir,
+                    getString(R.string.my_username), getString(R.string.my_repo),
+                    0, 0, BENCHMARK_ITERATIONS);
+            List<LoaderBenchmark.Result> results = benchmark.run();
+
+            StartupBenchmark startupBenchmark = new StartupBenchmark(
+                    HomeActivity.getStartPage(getPrefs()), SIMULATED_STARTUP_DELAY,
+                    BENCHMARK_ITERATIONS);
+            List<StartupBenchmark.Result> startupResults = startupBenchmark.run();
+
+            StringWriter sw = new StringWriter();
+            PrintWriter writer = new PrintWriter(sw);
+            writer.println("Loader benchmark, fixtures in " + fixtureDir);
+            for (LoaderBenchmark.Result result : results) {
+                result.dump(writer);
+            }
+            writer.println();
+            writer.println("Startup benchmark against the live API");
+            for (StartupBenchmark.Result result : startupResults) {
+                result.dump(writer);
+            }
+            writer.flush();
+            return sw.toString();
+        }
+
+        @Override
+        protected void onSuccess(String result) {
+            mBenchmarkTask = null;
+            mBenchmarkResults = result;
+            updateStats();
+        }
+
+        @Override
+        protected void onError(Exception e) {
+            mBenchmarkTask = null;
+            Snackbar.make(getRootLayout(),
+                    getString(R.string.network_stats_benchmark_failed, e.getMessage()),
+                    Snackbar.LENGTH_LONG).show();
+        }
+    }
+}
@@ -27,6 +27,7 @@ import android.support.v4.app.Fragment;
 import android.support.v4.content.Loader;
 import android.support.v7.app.ActionBar;
 import android.support.v7.app.AlertDialog;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -46,6 +47,8 @@ import com.gh4a.loader.IsCollaboratorLoader;
 import com.gh4a.loader.IssueLoader;
 import com.gh4a.loader.LoaderCallbacks;
 import com.gh4a.loader.LoaderResult;
+import com.gh4a.loader.PullRequestDetail;
+import com.gh4a.loader.PullRequestDetailLoader;
 import com.gh4a.loader.PullRequestLoader;
 import com.gh4a.utils.ApiHelpers;
 import com.gh4a.utils.IntentUtils;
@@ -89,6 +92,9 @@ public class PullRequestActivity extends BasePagerActivity implements
     private int mInitialPage;
     private long mInitialCommentId;
     private Boolean mIsCollaborator;
+    private boolean mUseDetailLoader;
+    // data loaded along with the pull request, handed to the conversation fragment
+    private PullRequestDetail mDetail;
 
     private Issue mIssue;
     private PullRequest mPullRequest;
@@ -146,6 +152,34 @@ public class PullRequestActivity extends BasePagerActivity implements
         }
     };
 
+    private final LoaderCallbacks<PullRequestDetail> mDetailCallback =
+            new LoaderCallbacks<PullRequestDetail>(this) {
+        @Override
+        protected Loader<LoaderResult<PullRequestDetail>> onCreateLoader() {
+            return new PullRequestDetailLoader(PullRequestActivity.this,
+                    mRepoOwner, mRepoName, mPullRequestNumber);
+        }
+
+        @Override
+        protected void onResultReady(PullRequestDetail result) {
+            mDetail = result;
+            mPullRequest = result.pullRequest;
+            mIssue = result.issue;
+            mIsCollaborator = result.isCollaborator;
+            fillHeader();
+            showContentIfReady();
+            supportInvalidateOptionsMenu();
+        }
+
+        @Override
+        protected boolean onError(Exception e) {
+            Log.w(Gh4Application.LOG_TAG, "Loading pull request via GraphQL failed", e);
+            mUseDetailLoader = false;
+            initRestLoaders();
+            return true;
+        }
+    };
+
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -163,6 +197,16 @@ public class PullRequestActivity extends BasePagerActivity implements
 
         setContentShown(false);
 
+        // the GraphQL API can't be used anonymously
+        mUseDetailLoader = Gh4Application.get().isAuthorized();
+        if (mUseDetailLoader) {
+            getSupportLoaderManager().initLoader(3, null, mDetailCallback);
+        } else {
+            initRestLoaders();
+        }
+    }
+
+    private void initRestLoaders() {
         getSupportLoaderManager().initLoader(0, null, mPullRequestCallback);
         getSupportLoaderManager().initLoader(1, null, mIssueCallback);
         getSupportLoaderManager().initLoader(2, null, mCollaboratorCallback);
@@ -263,6 +307,7 @@ public class PullRequestActivity extends BasePagerActivity implements
         mIssue = null;
         mPullRequest = null;
         mIsCollaborator = null;
+        mDetail = null;
         setContentShown(false);
         if (mEditFab != null) {
             mEditFab.post(new Runnable() {
@@ -274,7 +319,11 @@ public class PullRequestActivity extends BasePagerActivity implements
         }
         mHeader.setVisibility(View.GONE);
         mHeaderColorAttrs = null;
-        forceLoaderReload(0, 1, 2);
+        if (mUseDetailLoader) {
+            forceLoaderReload(3);
+        } else {
+            forceLoaderReload(0, 1, 2);
+        }
         invalidateTabs();
         super.onRefresh();
     }
@@ -298,8 +347,12 @@ public class PullRequestActivity extends BasePagerActivity implements
             return PullRequestFilesFragment.newInstance(mRepoOwner, mRepoName,
                     mPullRequestNumber, mPullRequest.getHead().getSha());
         } else {
-            Fragment f = PullRequestFragment.newInstance(mPullRequest,
+            PullRequestFragment f = PullRequestFragment.newInstance(mPullRequest,
                     mIssue, mIsCollaborator, mInitialCommentId);
+            if (mDetail != null) {
+                f.prefillData(mDetail.events, mDetail.statuses);
+                mDetail = null;
+            }
             mInitialCommentId = -1;
             return f;
         }
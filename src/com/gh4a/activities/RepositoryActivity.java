@@ -45,6 +45,7 @@ import org.eclipse.egit.github.core.Repository;
 import org.eclipse.egit.github.core.RepositoryBranch;
 import org.eclipse.egit.github.core.RepositoryId;
 import org.eclipse.egit.github.core.RepositoryTag;
+import org.eclipse.egit.github.core.client.GsonUtils;
 import org.eclipse.egit.github.core.service.StarService;
 import org.eclipse.egit.github.core.service.WatcherService;
 
@@ -100,6 +101,19 @@ public class RepositoryActivity extends BasePagerActivity {
 
         @Override
         protected void onResultReady(Repository result) {
+            Loader loader = getSupportLoaderManager().getLoader(LOADER_REPO);
+            boolean isCached = loader instanceof RepositoryLoader
+                    && ((RepositoryLoader) loader).isCachedResult(result);
+            if (mRepositoryIsCached && !isCached && mRepository != null
+                    && !GsonUtils.toJson(mRepository).equals(GsonUtils.toJson(result))) {
+                // the tabs were created from the cached repository, which is outdated,
+                // so have them recreated with the fresh one
+                mRepositoryFragment = null;
+                mContentListFragment = null;
+                mCommitListFragment = null;
+                mActivityFragment = null;
+            }
+            mRepositoryIsCached = isCached;
             mRepository = result;
             updateTitle();
             invalidateTabs();
@@ -165,6 +179,7 @@ public class RepositoryActivity extends BasePagerActivity {
     private String mInitialPath;
 
     private Repository mRepository;
+    private boolean mRepositoryIsCached;
     private List<RepositoryBranch> mBranches;
     private List<RepositoryTag> mTags;
     private String mSelectedRef;
@@ -283,6 +298,7 @@ public class RepositoryActivity extends BasePagerActivity {
         mContentListFragment = null;
         mActivityFragment = null;
         mRepository = null;
+        mRepositoryIsCached = false;
         mIsStarring = null;
         mIsWatching = null;
         mBranches = null;
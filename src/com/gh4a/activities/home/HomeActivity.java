@@ -1,6 +1,8 @@
 package com.gh4a.activities.home;
 
+import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentManager;
@@ -16,7 +18,9 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.gh4a.BasePagerActivity;
+import com.gh4a.ConnectionPrewarmer;
 import com.gh4a.Gh4Application;
+import com.gh4a.NetworkPolicy;
 import com.gh4a.R;
 import com.gh4a.activities.SearchActivity;
 import com.gh4a.activities.SettingsActivity;
@@ -41,6 +45,7 @@ public class HomeActivity extends BasePagerActivity implements
     private int mSelectedFactoryId;
 
     private static final String STATE_KEY_FACTORY_ITEM = "factoryItem";
+    private static final String EXTRA_INITIAL_PAGE = "initial_page";
 
     private static final SparseArray<String> START_PAGE_MAPPING = new SparseArray<>();
     static {
@@ -57,6 +62,12 @@ public class HomeActivity extends BasePagerActivity implements
         START_PAGE_MAPPING.put(R.id.search, "search");
     }
 
+    public static Intent makeNotificationsIntent(Context context) {
+        return new Intent(context, HomeActivity.class)
+                .putExtra(EXTRA_INITIAL_PAGE, R.id.notifications)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+    }
+
     private final LoaderCallbacks<User> mUserCallback = new LoaderCallbacks<User>(this) {
         @Override
         protected Loader<LoaderResult<User>> onCreateLoader() {
@@ -74,11 +85,21 @@ public class HomeActivity extends BasePagerActivity implements
         mUserLogin = Gh4Application.get().getAuthLogin();
         if (savedInstanceState != null) {
             mSelectedFactoryId = savedInstanceState.getInt(STATE_KEY_FACTORY_ITEM);
+        } else if (getIntent().hasExtra(EXTRA_INITIAL_PAGE)) {
+            mSelectedFactoryId = getIntent().getIntExtra(EXTRA_INITIAL_PAGE, R.id.news_feed);
         } else {
             mSelectedFactoryId = determineInitialPage();
         }
         mFactory = getFactoryForItem(mSelectedFactoryId);
 
+        // let connection setup overlap with setting up the home screen; this isn't
+        // done on application start, as the process may be started for background work
+        Gh4Application app = Gh4Application.get();
+        if (savedInstanceState == null && app.isAuthorized()
+                && app.getNetworkPolicy().getConnectionClass() != NetworkPolicy.CLASS_OFFLINE) {
+            ConnectionPrewarmer.prewarm(START_PAGE_MAPPING.get(mSelectedFactoryId));
+        }
+
         super.onCreate(savedInstanceState);
 
         ActionBar actionBar = getSupportActionBar();
@@ -325,11 +346,19 @@ public class HomeActivity extends BasePagerActivity implements
         getSupportActionBar().setTitle(mFactory.getTitleResId());
     }
 
-    private int determineInitialPage() {
-        String initialPage = getPrefs().getString(SettingsFragment.KEY_START_PAGE, "newsfeed");
-        if (TextUtils.equals(initialPage, "last")) {
-            initialPage = getPrefs().getString("last_selected_home_page", "newsfeed");
+    /**
+     * @return The start page value (see start_page_values) of the page to be shown initially
+     */
+    public static String getStartPage(SharedPreferences prefs) {
+        String startPage = prefs.getString(SettingsFragment.KEY_START_PAGE, "newsfeed");
+        if (TextUtils.equals(startPage, "last")) {
+            startPage = prefs.getString("last_selected_home_page", "newsfeed");
         }
+        return startPage;
+    }
+
+    private int determineInitialPage() {
+        String initialPage = getStartPage(getPrefs());
         for (int i = 0; i < START_PAGE_MAPPING.size(); i++) {
             if (TextUtils.equals(initialPage, START_PAGE_MAPPING.valueAt(i))) {
                 return START_PAGE_MAPPING.keyAt(i);
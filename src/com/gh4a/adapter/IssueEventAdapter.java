@@ -17,11 +17,15 @@ package com.gh4a.adapter;
 
 import android.content.Context;
 import android.content.Intent;
+import android.support.v7.widget.RecyclerView;
 import android.text.SpannableStringBuilder;
 import android.text.TextUtils;
 import android.text.style.TypefaceSpan;
+import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.ImageView;
+import android.widget.TextView;
 
 import com.gh4a.R;
 import com.gh4a.activities.CommitActivity;
@@ -49,6 +53,8 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class IssueEventAdapter extends CommentAdapterBase<IssueEventHolder> {
+    private static final int VIEW_TYPE_GAP = RootAdapter.CUSTOM_VIEW_TYPE_START + 1;
+
     private static final Pattern COMMIT_URL_REPO_NAME_AND_OWNER_PATTERN =
             Pattern.compile(".*github.com\\/repos\\/([^\\/]+)\\/([^\\/]+)\\/commits");
 
@@ -70,8 +76,13 @@ public class IssueEventAdapter extends CommentAdapterBase<IssueEventHolder> {
         EVENT_ICONS.put(IssueEvent.TYPE_RENAMED, R.attr.issueEventRenamedIcon);
     }
 
+    public interface OnGapClickListener {
+        void onGapClick(IssueEventHolder gap);
+    }
+
     private final int mIssueId;
     private boolean mLocked;
+    private OnGapClickListener mGapClickListener;
 
     public IssueEventAdapter(Context context, String repoOwner, String repoName,
             int issueId, OnCommentAction actionCallback) {
@@ -84,6 +95,33 @@ public class IssueEventAdapter extends CommentAdapterBase<IssueEventHolder> {
         notifyDataSetChanged();
     }
 
+    public void setOnGapClickListener(OnGapClickListener listener) {
+        mGapClickListener = listener;
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        if (viewType == VIEW_TYPE_GAP) {
+            View v = LayoutInflater.from(mContext).inflate(R.layout.row_timeline_gap, parent, false);
+            return new GapViewHolder(v);
+        }
+        return super.onCreateViewHolder(parent, viewType);
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        if (holder instanceof GapViewHolder) {
+            ((GapViewHolder) holder).bind(getItemFromAdapterPosition(position));
+        } else {
+            super.onBindViewHolder(holder, position);
+        }
+    }
+
+    @Override
+    protected int getItemViewType(IssueEventHolder item) {
+        return item.isGap() ? VIEW_TYPE_GAP : super.getItemViewType(item);
+    }
+
     @Override
     protected User getUser(IssueEventHolder item) {
         return item.getUser();
@@ -330,4 +368,31 @@ public class IssueEventAdapter extends CommentAdapterBase<IssueEventHolder> {
 
         return text;
     }
+
+    private class GapViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+        private final TextView mDescView;
+
+        public GapViewHolder(View view) {
+            super(view);
+            mDescView = (TextView) view.findViewById(R.id.tv_desc);
+            view.setOnClickListener(this);
+        }
+
+        public void bind(IssueEventHolder gap) {
+            itemView.setEnabled(true);
+            mDescView.setText(mContext.getResources().getQuantityString(
+                    R.plurals.load_hidden_items, gap.hiddenItemCount, gap.hiddenItemCount));
+        }
+
+        @Override
+        public void onClick(View v) {
+            int position = getAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && mGapClickListener != null) {
+                // the row is replaced once the hidden items are loaded
+                itemView.setEnabled(false);
+                mDescView.setText(R.string.loading_msg);
+                mGapClickListener.onGapClick(getItemFromAdapterPosition(position));
+            }
+        }
+    }
 }
@@ -13,6 +13,8 @@ import android.widget.TextView;
 
 import com.gh4a.R;
 import com.gh4a.loader.NotificationHolder;
+import com.gh4a.sync.NotificationGroup;
+import com.gh4a.sync.NotificationStore;
 import com.gh4a.utils.StringUtils;
 import com.gh4a.utils.UiUtils;
 
@@ -20,6 +22,9 @@ import org.eclipse.egit.github.core.Notification;
 import org.eclipse.egit.github.core.NotificationSubject;
 import org.eclipse.egit.github.core.Repository;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class NotificationAdapter extends
         RootAdapter<NotificationHolder, NotificationAdapter.ViewHolder> {
     private static final int VIEW_TYPE_NOTIFICATION_HEADER = RootAdapter.CUSTOM_VIEW_TYPE_START + 1;
@@ -37,6 +42,7 @@ public class NotificationAdapter extends
     private final int mBottomMargin;
     private final Context mContext;
     private final OnNotificationActionCallback mActionCallback;
+    private final List<NotificationGroup> mGroups = new ArrayList<>();
 
     public NotificationAdapter(Context context, OnNotificationActionCallback actionCallback) {
         super(context);
@@ -46,6 +52,63 @@ public class NotificationAdapter extends
         mBottomMargin = context.getResources().getDimensionPixelSize(R.dimen.card_margin);
     }
 
+    /**
+     * Shows the given groups, which are expected to be in
+     * {@link NotificationStore#REPOSITORY_ORDER}. Groups that are shown already
+     * are left alone, so only new and changed groups are bound again.
+     */
+    public void setGroups(List<NotificationGroup> groups) {
+        int oldIndex = 0;
+        int newIndex = 0;
+        int position = 0;
+        while (oldIndex < mGroups.size() || newIndex < groups.size()) {
+            NotificationGroup oldGroup = oldIndex < mGroups.size() ? mGroups.get(oldIndex) : null;
+            NotificationGroup newGroup = newIndex < groups.size() ? groups.get(newIndex) : null;
+            int oldCount = oldGroup != null ? oldGroup.notifications.size() + 1 : 0;
+
+            if (oldGroup == newGroup) {
+                position += oldCount;
+                oldIndex++;
+                newIndex++;
+                continue;
+            }
+
+            int order = oldGroup == null ? 1 : newGroup == null ? -1
+                    : NotificationStore.REPOSITORY_ORDER.compare(
+                            oldGroup.repository, newGroup.repository);
+            if (order <= 0) {
+                // group is gone or changed
+                removeRange(position, oldCount);
+                oldIndex++;
+            }
+            if (order >= 0) {
+                // group is new or changed
+                List<NotificationHolder> items = makeItems(newGroup);
+                insertAll(position, items);
+                position += items.size();
+                newIndex++;
+            }
+        }
+        mGroups.clear();
+        mGroups.addAll(groups);
+    }
+
+    @Override
+    public void clear() {
+        mGroups.clear();
+        super.clear();
+    }
+
+    private static List<NotificationHolder> makeItems(NotificationGroup group) {
+        List<NotificationHolder> items = new ArrayList<>(group.notifications.size() + 1);
+        items.add(new NotificationHolder(group.repository));
+        for (Notification notification : group.notifications) {
+            items.add(new NotificationHolder(notification));
+        }
+        items.get(items.size() - 1).setIsLastRepositoryNotification(true);
+        return items;
+    }
+
     public void markAsRead(@Nullable Repository repository, @Nullable Notification notification) {
         NotificationHolder previousRepoItem = null;
         int notificationsInSameRepoCount = 0;
@@ -179,15 +179,61 @@ public abstract class RootAdapter<T, VH extends RecyclerView.ViewHolder>
      */
     public void add(T object) {
         mUnfilteredObjects.add(object);
-        mObjects.add(object);
+        if (mObjects != mUnfilteredObjects) {
+            mObjects.add(object);
+        }
     }
 
     public void addAll(Collection<T> objects) {
-        if (objects != null) {
+        if (objects != null && !objects.isEmpty()) {
+            int start = (mHeaderView != null ? 1 : 0) + mObjects.size();
             mUnfilteredObjects.addAll(objects);
-            mObjects.addAll(objects);
-            notifyDataSetChanged();
+            if (mObjects != mUnfilteredObjects) {
+                mObjects.addAll(objects);
+            }
+            // only the appended range changed, so avoid rebinding the existing items
+            notifyItemRangeInserted(start, objects.size());
+        }
+    }
+
+    /**
+     * Inserts the objects at the given position. Must not be used while a filter is applied.
+     */
+    public void insertAll(int position, Collection<T> objects) {
+        if (objects.isEmpty()) {
+            return;
+        }
+        mUnfilteredObjects.addAll(position, objects);
+        if (mObjects != mUnfilteredObjects) {
+            mObjects.addAll(position, objects);
+        }
+        notifyItemRangeInserted((mHeaderView != null ? 1 : 0) + position, objects.size());
+    }
+
+    /**
+     * Replaces the object at the given position. Must not be used while a filter is applied.
+     */
+    public void set(int position, T object) {
+        mUnfilteredObjects.set(position, object);
+        if (mObjects != mUnfilteredObjects) {
+            mObjects.set(position, object);
+        }
+        notifyItemChanged((mHeaderView != null ? 1 : 0) + position);
+    }
+
+    /**
+     * Removes count objects starting at the given position. Must not be used while
+     * a filter is applied.
+     */
+    public void removeRange(int position, int count) {
+        if (count == 0) {
+            return;
+        }
+        mUnfilteredObjects.subList(position, position + count).clear();
+        if (mObjects != mUnfilteredObjects) {
+            mObjects.subList(position, position + count).clear();
         }
+        notifyItemRangeRemoved((mHeaderView != null ? 1 : 0) + position, count);
     }
 
     public void remove(T object) {
@@ -42,6 +42,7 @@ import com.gh4a.activities.UserActivity;
 import com.gh4a.activities.WikiListActivity;
 import com.gh4a.adapter.EventAdapter;
 import com.gh4a.adapter.RootAdapter;
+import com.gh4a.sync.StoredEventPageIterator;
 import com.gh4a.utils.IntentUtils;
 import com.gh4a.utils.UiUtils;
 import com.gh4a.widget.ContextMenuAwareRecyclerView;
@@ -124,7 +125,18 @@ public abstract class EventListFragment extends PagedDataBaseFragment<Event> {
     protected PageIterator<Event> onCreateIterator() {
         EventService eventService = (EventService)
                 Gh4Application.get().getService(Gh4Application.EVENT_SERVICE);
-        return eventService.pageUserEvents(mLogin, false);
+        return makeStoredIterator(eventService.pageUserEvents(mLogin, false));
+    }
+
+    /**
+     * Makes the given feed iterator read from and update the local event store,
+     * so that refreshing only fetches the events that are new.
+     */
+    protected PageIterator<Event> makeStoredIterator(PageIterator<Event> iterator) {
+        EventService eventService = (EventService)
+                Gh4Application.get().getService(Gh4Application.EVENT_SERVICE);
+        return new StoredEventPageIterator(iterator.getRequest(), eventService.getClient(),
+                Gh4Application.get().getEventFeedStore());
     }
 
     @Override
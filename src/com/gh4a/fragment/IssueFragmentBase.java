@@ -21,6 +21,7 @@ import android.content.Intent;
 import android.graphics.Typeface;
 import android.os.Bundle;
 import android.support.v4.app.FragmentManager;
+import android.support.v4.content.Loader;
 import android.support.v7.app.AlertDialog;
 import android.support.v7.widget.RecyclerView;
 import android.text.SpannableString;
@@ -41,6 +42,7 @@ import com.gh4a.activities.EditCommentActivity;
 import com.gh4a.activities.UserActivity;
 import com.gh4a.adapter.IssueEventAdapter;
 import com.gh4a.adapter.RootAdapter;
+import com.gh4a.loader.IssueCommentListLoader;
 import com.gh4a.loader.IssueEventHolder;
 import com.gh4a.utils.ApiHelpers;
 import com.gh4a.utils.AvatarHandler;
@@ -50,6 +52,7 @@ import com.gh4a.utils.UiUtils;
 import com.gh4a.widget.IssueLabelSpan;
 
 import org.eclipse.egit.github.core.Comment;
+import org.eclipse.egit.github.core.CommitComment;
 import org.eclipse.egit.github.core.Issue;
 import org.eclipse.egit.github.core.Label;
 import org.eclipse.egit.github.core.RepositoryId;
@@ -57,12 +60,14 @@ import org.eclipse.egit.github.core.User;
 import org.eclipse.egit.github.core.service.IssueService;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 public abstract class IssueFragmentBase extends ListDataBaseFragment<IssueEventHolder> implements
         View.OnClickListener, IssueEventAdapter.OnCommentAction<IssueEventHolder>,
-        CommentBoxFragment.Callback {
+        IssueEventAdapter.OnGapClickListener, CommentBoxFragment.Callback {
     protected static final int REQUEST_EDIT = 1000;
 
     protected View mListHeaderView;
@@ -157,7 +162,9 @@ public abstract class IssueFragmentBase extends ListDataBaseFragment<IssueEventH
         if (mImageGetter != null) {
             mImageGetter.clearHtmlCache();
         }
-        super.onRefresh();
+        // unlike super, keep the adapter contents: the loader only fetches what
+        // changed, and onReplaceData only adds the rows that are new
+        hideContentAndRestartLoaders(0);
     }
 
     @Override
@@ -183,7 +190,10 @@ public abstract class IssueFragmentBase extends ListDataBaseFragment<IssueEventH
     }
 
     public void reloadEvents() {
-        super.onRefresh();
+        Loader loader = getLoaderManager().getLoader(0);
+        if (loader != null) {
+            loader.onContentChanged();
+        }
     }
 
     @Override
@@ -191,22 +201,99 @@ public abstract class IssueFragmentBase extends ListDataBaseFragment<IssueEventH
         mAdapter = new IssueEventAdapter(getActivity(), mRepoOwner, mRepoName,
                 mIssue.getNumber(), this);
         mAdapter.setLocked(isLocked());
+        mAdapter.setOnGapClickListener(this);
         return mAdapter;
     }
 
     @Override
-    protected void onAddData(RootAdapter<IssueEventHolder, ?> adapter, List<IssueEventHolder> data) {
-        super.onAddData(adapter, data);
-        if (mInitialCommentId >= 0) {
-            for (int i = 0; i < data.size(); i++) {
-                IssueEventHolder event = data.get(i);
-                if (event.comment != null && event.comment.getId() == mInitialCommentId) {
-                    scrollToAndHighlightPosition(i + 1 /* adjust for header view */);
-                    break;
-                }
+    protected void onReplaceData(RootAdapter<IssueEventHolder, ?> adapter,
+            List<IssueEventHolder> data) {
+        if (adapter.getCount() == 0) {
+            super.onReplaceData(adapter, data);
+        } else {
+            updateData(adapter, data);
+            updateMentionUsers();
+        }
+        // the cached result may be outdated, so wait for the network to find the comment
+        if (mInitialCommentId >= 0 && !isCachedResult(data)) {
+            scrollToInitialComment(data);
+        }
+    }
+
+    private void scrollToInitialComment(List<IssueEventHolder> data) {
+        boolean hasGap = false;
+        for (int i = 0; i < data.size(); i++) {
+            IssueEventHolder event = data.get(i);
+            if (event.comment != null && event.comment.getId() == mInitialCommentId) {
+                scrollToAndHighlightPosition(i + 1 /* adjust for header view */);
+                mInitialCommentId = -1;
+                return;
             }
+            hasGap |= event.isGap();
+        }
+        if (hasGap) {
+            // the comment may be hidden in the gap, so keep loading until it's gone
+            expandGap();
+        } else {
             mInitialCommentId = -1;
         }
+    }
+
+    private void updateData(RootAdapter<IssueEventHolder, ?> adapter,
+            List<IssueEventHolder> data) {
+        // Both lists are sorted the same way, so walk them in parallel and only touch
+        // the rows whose entries were added, removed or changed. Entries are matched
+        // by their key, as the holders of the cached result and of a refresh of
+        // changed comments are new objects.
+        Set<String> newKeys = new HashSet<>();
+        for (IssueEventHolder item : data) {
+            newKeys.add(item.getKey());
+        }
+        Set<String> placedKeys = new HashSet<>();
+        int position = 0;
+        int index = 0;
+        while (position < adapter.getCount() || index < data.size()) {
+            IssueEventHolder current = position < adapter.getCount()
+                    ? adapter.getItem(position) : null;
+            IssueEventHolder item = index < data.size() ? data.get(index) : null;
+            String currentKey = current != null ? current.getKey() : null;
+            if (item != null && item.getKey().equals(currentKey)) {
+                if (current != item && !hasSameContent(current, item)) {
+                    adapter.set(position, item);
+                }
+                placedKeys.add(currentKey);
+                position++;
+                index++;
+            } else if (current != null && (item == null || !newKeys.contains(currentKey)
+                    || placedKeys.contains(currentKey))) {
+                adapter.removeRange(position, 1);
+            } else {
+                adapter.insertAll(position, Collections.singletonList(item));
+                placedKeys.add(item.getKey());
+                position++;
+                index++;
+            }
+        }
+    }
+
+    private static boolean hasSameContent(IssueEventHolder current, IssueEventHolder item) {
+        // the hidden item count of gaps and the diff position of review comments
+        // can change without the date changing
+        if (current.isGap() || current.comment instanceof CommitComment) {
+            return false;
+        }
+        return current.getUpdatedAt().equals(item.getUpdatedAt());
+    }
+
+    private boolean isCachedResult(List<IssueEventHolder> data) {
+        Loader loader = getLoaderManager().getLoader(0);
+        return loader instanceof IssueCommentListLoader
+                && ((IssueCommentListLoader) loader).isCachedResult(data);
+    }
+
+    @Override
+    protected void onAddData(RootAdapter<IssueEventHolder, ?> adapter, List<IssueEventHolder> data) {
+        super.onAddData(adapter, data);
         updateMentionUsers();
     }
 
@@ -386,6 +473,19 @@ public abstract class IssueFragmentBase extends ListDataBaseFragment<IssueEventH
         }
     }
 
+    @Override
+    public void onGapClick(IssueEventHolder gap) {
+        expandGap();
+    }
+
+    private void expandGap() {
+        Loader loader = getLoaderManager().getLoader(0);
+        if (loader instanceof IssueCommentListLoader) {
+            ((IssueCommentListLoader) loader).expandGap();
+            loader.onContentChanged();
+        }
+    }
+
     @Override
     public void deleteComment(final IssueEventHolder comment) {
         new AlertDialog.Builder(getActivity())
@@ -427,6 +527,10 @@ public abstract class IssueFragmentBase extends ListDataBaseFragment<IssueEventH
 
         @Override
         protected void onSuccess(Void result) {
+            Loader loader = getLoaderManager().getLoader(0);
+            if (loader instanceof IssueCommentListLoader) {
+                ((IssueCommentListLoader) loader).forgetComment(mComment);
+            }
             reloadEvents();
             getActivity().setResult(Activity.RESULT_OK);
         }
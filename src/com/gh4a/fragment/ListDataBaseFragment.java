@@ -21,8 +21,7 @@ public abstract class ListDataBaseFragment<T> extends LoadingListFragmentBase {
 
         @Override
         protected void onResultReady(List<T> result) {
-            mAdapter.clear();
-            onAddData(mAdapter, result);
+            onReplaceData(mAdapter, result);
             setContentShown(true);
             updateEmptyState();
             getActivity().supportInvalidateOptionsMenu();
@@ -55,6 +54,16 @@ public abstract class ListDataBaseFragment<T> extends LoadingListFragmentBase {
         return !mAdapter.isCardStyle();
     }
 
+    /**
+     * Replaces the adapter contents by a new load result. Fragments whose loaders
+     * reuse items of their previous results can override this to only update
+     * the items that changed.
+     */
+    protected void onReplaceData(RootAdapter<T, ?> adapter, List<T> data) {
+        adapter.clear();
+        onAddData(adapter, data);
+    }
+
     protected void onAddData(RootAdapter<T, ?> adapter, List<T> data) {
         adapter.addAll(data);
         adapter.notifyDataSetChanged();
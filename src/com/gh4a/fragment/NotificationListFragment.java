@@ -25,6 +25,7 @@ import com.gh4a.loader.LoaderResult;
 import com.gh4a.loader.NotificationHolder;
 import com.gh4a.loader.NotificationListLoadResult;
 import com.gh4a.loader.NotificationListLoader;
+import com.gh4a.sync.NotificationsJobService;
 import com.gh4a.utils.ApiHelpers;
 import com.gh4a.utils.IntentUtils;
 
@@ -46,16 +47,15 @@ public class NotificationListFragment extends LoadingListFragmentBase implements
             new LoaderCallbacks<NotificationListLoadResult>(this) {
         @Override
         protected Loader<LoaderResult<NotificationListLoadResult>> onCreateLoader() {
-            return new NotificationListLoader(getContext());
+            return new NotificationListLoader(getContext(), mForceRefresh);
         }
 
         @Override
         protected void onResultReady(NotificationListLoadResult result) {
+            NotificationsJobService.cancelNotification(getActivity());
             mNotificationsLoadTime = result.loadTime;
-            mAdapter.clear();
-            mAdapter.addAll(result.notifications);
+            mAdapter.setGroups(result.groups);
             setContentShown(true);
-            mAdapter.notifyDataSetChanged();
             updateEmptyState();
             updateMenuItemVisibility();
         }
@@ -64,6 +64,7 @@ public class NotificationListFragment extends LoadingListFragmentBase implements
     private NotificationAdapter mAdapter;
     private Date mNotificationsLoadTime;
     private MenuItem mMarkAllAsReadMenuItem;
+    private boolean mForceRefresh;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -85,9 +86,8 @@ public class NotificationListFragment extends LoadingListFragmentBase implements
 
     @Override
     public void onRefresh() {
-        if (mAdapter != null) {
-            mAdapter.clear();
-        }
+        // keep the adapter contents, the new result only replaces the groups that changed
+        mForceRefresh = true;
         hideContentAndRestartLoaders(0);
         updateMenuItemVisibility();
     }
@@ -221,6 +221,7 @@ public class NotificationListFragment extends LoadingListFragmentBase implements
             } else {
                 notificationService.markNotificationsAsRead(mNotificationsLoadTime);
             }
+            Gh4Application.get().getNotificationStore().markAsRead(mRepository, mNotification);
 
             return null;
         }
@@ -245,6 +246,7 @@ public class NotificationListFragment extends LoadingListFragmentBase implements
                     Gh4Application.get().getService(Gh4Application.NOTIFICATION_SERVICE);
 
             notificationService.setThreadSubscription(mNotification.getId(), false, true);
+            Gh4Application.get().getNotificationStore().markAsRead(null, mNotification);
             return null;
         }
 
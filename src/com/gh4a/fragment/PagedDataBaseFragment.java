@@ -16,11 +16,14 @@
 package com.gh4a.fragment;
 
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.support.v4.content.Loader;
+import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 
+import com.gh4a.Gh4Application;
 import com.gh4a.PageIteratorWithSaveableState;
 import com.gh4a.R;
 import com.gh4a.adapter.RootAdapter;
@@ -30,7 +33,6 @@ import com.gh4a.loader.PageIteratorLoader;
 
 import org.eclipse.egit.github.core.client.PageIterator;
 
-import java.util.ArrayList;
 import java.util.Collection;
 
 public abstract class PagedDataBaseFragment<T> extends LoadingListFragmentBase implements
@@ -38,10 +40,15 @@ public abstract class PagedDataBaseFragment<T> extends LoadingListFragmentBase i
     private RootAdapter<T, ? extends RecyclerView.ViewHolder> mAdapter;
     private PageIteratorWithSaveableState<T> mIterator;
     private boolean mIsLoadCompleted;
+    // number of loaded items (before any filtering in onAddData) that were passed to the adapter
+    private int mAddedItemCount;
     private View mLoadingView;
 
     private static final String STATE_KEY_ITERATOR_STATE = "iterator_state";
 
+    private static final int DEFAULT_PREFETCH_DISTANCE = 10;
+    private static final float FAST_SCROLL_ITEMS_PER_SECOND = 20;
+
     private final LoaderCallbacks<PageIteratorLoader<T>.LoadedPage> mLoaderCallback =
             new LoaderCallbacks<PageIteratorLoader<T>.LoadedPage>(this) {
         @Override
@@ -51,10 +58,9 @@ public abstract class PagedDataBaseFragment<T> extends LoadingListFragmentBase i
 
         @Override
         protected void onResultReady(PageIteratorLoader<T>.LoadedPage result) {
-            fillData(result.results, result.hasMoreData);
+            fillData(result);
             mIsLoadCompleted = true;
             setContentShown(true);
-            mAdapter.notifyDataSetChanged();
             updateEmptyState();
         }
     };
@@ -86,6 +92,7 @@ public abstract class PagedDataBaseFragment<T> extends LoadingListFragmentBase i
         if (mAdapter != null) {
             mAdapter.clear();
         }
+        mAddedItemCount = 0;
         mIsLoadCompleted = false;
         hideContentAndRestartLoaders(0);
     }
@@ -94,11 +101,13 @@ public abstract class PagedDataBaseFragment<T> extends LoadingListFragmentBase i
     protected void onRecyclerViewInflated(RecyclerView view, LayoutInflater inflater) {
         super.onRecyclerViewInflated(view, inflater);
         mAdapter = onCreateAdapter();
+        mAddedItemCount = 0;
 
         mLoadingView = inflater.inflate(R.layout.list_loading_view, view, false);
         mAdapter.setFooterView(mLoadingView, this);
         mAdapter.setOnItemClickListener(this);
         view.setAdapter(mAdapter);
+        view.addOnScrollListener(mPrefetchScrollListener);
         updateEmptyState();
     }
 
@@ -112,25 +121,18 @@ public abstract class PagedDataBaseFragment<T> extends LoadingListFragmentBase i
         return mAdapter.isCardStyle();
     }
 
-    private void fillData(Collection<T> data, boolean hasMoreData) {
-        mLoadingView.setVisibility(hasMoreData ? View.VISIBLE : View.GONE);
-
-        if (mAdapter.getCount() > 0 && !data.isEmpty() && data.iterator().next() == mAdapter.getItem(0)) {
-            // there are common items, preserve them in order to keep the scroll position
-            ArrayList<T> newData = new ArrayList<>();
-            int index = 0, count = mAdapter.getCount();
-            for (T item : data) {
-                if (index < count && item == mAdapter.getItem(index++)) {
-                    // we already know about the item
-                    continue;
-                }
-                newData.add(item);
-            }
-            onAddData(mAdapter, newData);
+    private void fillData(PageIteratorLoader<T>.LoadedPage page) {
+        mLoadingView.setVisibility(page.hasMoreData ? View.VISIBLE : View.GONE);
+
+        if (mAddedItemCount > 0 && page.getPreviousCount() == mAddedItemCount) {
+            // the page continues what we already have, only append the new items
+            // in order to keep the scroll position
+            onAddData(mAdapter, page.newResults);
         } else {
             mAdapter.clear();
-            onAddData(mAdapter, data);
+            onAddData(mAdapter, page.results);
         }
+        mAddedItemCount = page.results.size();
     }
 
     protected void onAddData(RootAdapter<T, ? extends RecyclerView.ViewHolder> adapter, Collection<T> data) {
@@ -145,6 +147,57 @@ public abstract class PagedDataBaseFragment<T> extends LoadingListFragmentBase i
         }
     }
 
+    /**
+     * @return Number of items before the end of the list at which loading of
+     *         the next page is started in the background
+     */
+    protected int getPrefetchDistance() {
+        return DEFAULT_PREFETCH_DISTANCE;
+    }
+
+    private int getPrefetchDepth(boolean fastScrolling) {
+        return Gh4Application.get().getNetworkPolicy().getPrefetchDepth(fastScrolling);
+    }
+
+    private final RecyclerView.OnScrollListener mPrefetchScrollListener =
+            new RecyclerView.OnScrollListener() {
+        private int mLastPosition = RecyclerView.NO_POSITION;
+        private long mLastPositionTime;
+        private float mItemsPerSecond;
+
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            LinearLayoutManager lm = (LinearLayoutManager) recyclerView.getLayoutManager();
+            int position = lm.findLastVisibleItemPosition();
+            if (position == RecyclerView.NO_POSITION || position == mLastPosition) {
+                return;
+            }
+
+            long now = SystemClock.uptimeMillis();
+            if (mLastPosition != RecyclerView.NO_POSITION && now > mLastPositionTime) {
+                mItemsPerSecond = (position - mLastPosition) * 1000F / (now - mLastPositionTime);
+            }
+            mLastPosition = position;
+            mLastPositionTime = now;
+
+            if (dy <= 0 || !mIsLoadCompleted || mLoadingView.getVisibility() != View.VISIBLE) {
+                return;
+            }
+
+            boolean fastScrolling = mItemsPerSecond > FAST_SCROLL_ITEMS_PER_SECOND;
+            int distance = getPrefetchDistance() * (fastScrolling ? 2 : 1);
+            if (mAdapter.getItemCount() - 1 - position > distance) {
+                return;
+            }
+
+            int depth = getPrefetchDepth(fastScrolling);
+            Loader<?> loader = getLoaderManager().getLoader(0);
+            if (depth > 0 && loader instanceof PageIteratorLoader) {
+                ((PageIteratorLoader<?>) loader).prefetch(depth);
+            }
+        }
+    };
+
     protected abstract RootAdapter<T, ? extends RecyclerView.ViewHolder> onCreateAdapter();
     protected abstract PageIterator<T> onCreateIterator();
     public abstract void onItemClick(T item);
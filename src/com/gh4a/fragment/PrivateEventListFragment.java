@@ -30,8 +30,8 @@ public class PrivateEventListFragment extends EventListFragment {
         EventService eventService = (EventService)
                 Gh4Application.get().getService(Gh4Application.EVENT_SERVICE);
         if (mOrganization != null) {
-            return eventService.pageUserOrgEvents(mLogin, mOrganization);
+            return makeStoredIterator(eventService.pageUserOrgEvents(mLogin, mOrganization));
         }
-        return eventService.pageUserReceivedEvents(mLogin);
+        return makeStoredIterator(eventService.pageUserReceivedEvents(mLogin));
     }
 }
@@ -56,13 +56,20 @@ import java.util.Map;
 
 public class PullRequestFragment extends IssueFragmentBase {
     private PullRequest mPullRequest;
+    private List<IssueEventHolder> mPrefilledEvents;
+    private List<CommitStatus> mPrefilledStatuses;
 
     private final LoaderCallbacks<List<CommitStatus>> mStatusCallback =
             new LoaderCallbacks<List<CommitStatus>>(this) {
         @Override
         protected Loader<LoaderResult<List<CommitStatus>>> onCreateLoader() {
-            return new CommitStatusLoader(getActivity(), mRepoOwner, mRepoName,
-                    mPullRequest.getHead().getSha());
+            CommitStatusLoader loader = new CommitStatusLoader(getActivity(),
+                    mRepoOwner, mRepoName, mPullRequest.getHead().getSha());
+            if (mPrefilledStatuses != null) {
+                loader.prefillData(mPrefilledStatuses);
+                mPrefilledStatuses = null;
+            }
+            return loader;
         }
 
         @Override
@@ -84,6 +91,15 @@ public class PullRequestFragment extends IssueFragmentBase {
         return f;
     }
 
+    /**
+     * Sets data already loaded by the activity, which is shown instead of doing the
+     * initial load. Either list may be null if it hasn't been loaded.
+     */
+    public void prefillData(List<IssueEventHolder> events, List<CommitStatus> statuses) {
+        mPrefilledEvents = events;
+        mPrefilledStatuses = statuses;
+    }
+
     public void updateState(PullRequest pr) {
         mIssue.setState(pr.getState());
         mPullRequest.setState(pr.getState());
@@ -214,8 +230,13 @@ public class PullRequestFragment extends IssueFragmentBase {
 
     @Override
     public Loader<LoaderResult<List<IssueEventHolder>>> onCreateLoader() {
-        return new PullRequestCommentListLoader(getActivity(),
+        PullRequestCommentListLoader loader = new PullRequestCommentListLoader(getActivity(),
                 mRepoOwner, mRepoName, mPullRequest.getNumber());
+        if (mPrefilledEvents != null) {
+            loader.prefillData(mPrefilledEvents);
+            mPrefilledEvents = null;
+        }
+        return loader;
     }
 
     @Override
@@ -30,6 +30,6 @@ public class RepositoryEventListFragment extends EventListFragment {
     protected PageIterator<Event> onCreateIterator() {
         EventService eventService = (EventService)
                 Gh4Application.get().getService(Gh4Application.EVENT_SERVICE);
-        return eventService.pageEvents(mRepository);
+        return makeStoredIterator(eventService.pageEvents(mRepository));
     }
 }
@@ -43,9 +43,9 @@ import com.gh4a.activities.WatcherListActivity;
 import com.gh4a.activities.WikiListActivity;
 import com.gh4a.loader.LoaderCallbacks;
 import com.gh4a.loader.LoaderResult;
-import com.gh4a.loader.PullRequestCountLoader;
 import com.gh4a.loader.ReadmeLoader;
-import com.gh4a.utils.ApiHelpers;
+import com.gh4a.loader.RepositoryOverview;
+import com.gh4a.loader.RepositoryOverviewLoader;
 import com.gh4a.utils.HttpImageGetter;
 import com.gh4a.utils.StringUtils;
 import com.gh4a.utils.UiUtils;
@@ -86,23 +86,28 @@ public class RepositoryFragment extends LoadingFragmentBase implements OnClickLi
         }
     };
 
-    private final LoaderCallbacks<Integer> mPullRequestsCallback = new LoaderCallbacks<Integer>(this) {
+    private final LoaderCallbacks<RepositoryOverview> mOverviewCallback =
+            new LoaderCallbacks<RepositoryOverview>(this) {
         @Override
-        protected Loader<LoaderResult<Integer>> onCreateLoader() {
-            return new PullRequestCountLoader(getActivity(), mRepository, ApiHelpers.IssueState.OPEN);
+        protected Loader<LoaderResult<RepositoryOverview>> onCreateLoader() {
+            return new RepositoryOverviewLoader(getActivity(), mRepository);
         }
 
         @Override
-        protected void onResultReady(Integer result) {
+        protected void onResultReady(RepositoryOverview result) {
             View v = getView();
             v.findViewById(R.id.issues_progress).setVisibility(View.GONE);
             v.findViewById(R.id.pull_requests_progress).setVisibility(View.GONE);
 
             TextView tvIssuesCount = (TextView) mContentView.findViewById(R.id.tv_issues_count);
-            tvIssuesCount.setText(String.valueOf(mRepository.getOpenIssues() - result));
+            tvIssuesCount.setText(String.valueOf(result.openIssues));
 
             TextView tvPullRequestsCountView = (TextView) v.findViewById(R.id.tv_pull_requests_count);
-            tvPullRequestsCountView.setText(String.valueOf(result));
+            tvPullRequestsCountView.setText(String.valueOf(result.openPullRequests));
+
+            fillCountLabel(R.id.tv_contributors_label,
+                    R.string.repo_contributors_count, result.contributors);
+            fillCountLabel(R.id.tv_releases_label, R.string.releases_count, result.releases);
         }
     };
 
@@ -133,6 +138,7 @@ public class RepositoryFragment extends LoadingFragmentBase implements OnClickLi
             mContentView.findViewById(R.id.pb_readme).setVisibility(View.VISIBLE);
             mContentView.findViewById(R.id.pull_requests_progress).setVisibility(View.VISIBLE);
         }
+        RepositoryOverviewLoader.invalidate(mRepository);
         if (mImageGetter != null) {
             mImageGetter.clearHtmlCache();
         }
@@ -148,7 +154,7 @@ public class RepositoryFragment extends LoadingFragmentBase implements OnClickLi
         setContentShown(true);
 
         getLoaderManager().initLoader(0, null, mReadmeCallback);
-        getLoaderManager().initLoader(1, null, mPullRequestsCallback);
+        getLoaderManager().initLoader(1, null, mOverviewCallback);
     }
 
     @Override
@@ -230,7 +236,7 @@ public class RepositoryFragment extends LoadingFragmentBase implements OnClickLi
         if (mRepository.isHasIssues()) {
             llIssues.setVisibility(View.VISIBLE);
             llIssues.setOnClickListener(this);
-            // value will be filled when PR count arrives
+            // value will be filled when the overview counters arrive
         } else {
             llIssues.setVisibility(View.GONE);
         }
@@ -250,6 +256,13 @@ public class RepositoryFragment extends LoadingFragmentBase implements OnClickLi
         }
     }
 
+    private void fillCountLabel(int id, int stringId, int count) {
+        if (count != RepositoryOverview.UNKNOWN) {
+            TextView view = (TextView) mContentView.findViewById(id);
+            view.setText(getString(stringId, count));
+        }
+    }
+
     private void fillTextView(int id, int stringId, String text) {
         TextView view = (TextView) mContentView.findViewById(id);
 
@@ -7,6 +7,7 @@ import android.database.MatrixCursor;
 import android.database.MergeCursor;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.Nullable;
 import android.support.annotation.StringRes;
@@ -16,6 +17,7 @@ import android.support.v4.content.Loader;
 import android.support.v4.widget.CursorAdapter;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.SearchView;
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -29,7 +31,9 @@ import android.widget.SpinnerAdapter;
 import android.widget.TextView;
 
 import com.gh4a.BackgroundTask;
+import com.gh4a.Gh4Application;
 import com.gh4a.R;
+import com.gh4a.RequestScheduler;
 import com.gh4a.activities.FileViewerActivity;
 import com.gh4a.activities.RepositoryActivity;
 import com.gh4a.activities.UserActivity;
@@ -42,6 +46,7 @@ import com.gh4a.loader.CodeSearchLoader;
 import com.gh4a.loader.LoaderCallbacks;
 import com.gh4a.loader.LoaderResult;
 import com.gh4a.loader.RepositorySearchLoader;
+import com.gh4a.loader.SearchLoader;
 import com.gh4a.loader.UserSearchLoader;
 import com.gh4a.utils.StringUtils;
 import com.gh4a.utils.UiUtils;
@@ -86,6 +91,10 @@ public class SearchFragment extends LoadingListFragmentBase implements
                     SuggestionsProvider.Columns.SUGGESTION + " LIKE ?";
     private static final String SUGGESTION_ORDER = SuggestionsProvider.Columns.DATE + " DESC";
 
+    // searches while typing are started once the user paused for that long
+    private static final long TYPE_AHEAD_DELAY = 500;
+    private static final int MIN_TYPE_AHEAD_LENGTH = 3;
+
     private static final String STATE_KEY_QUERY = "query";
     private static final String STATE_KEY_SEARCH_TYPE = "search_type";
 
@@ -95,6 +104,7 @@ public class SearchFragment extends LoadingListFragmentBase implements
         protected Loader<LoaderResult<List<Repository>>> onCreateLoader() {
             RepositorySearchLoader loader = new RepositorySearchLoader(getActivity(), null);
             loader.setQuery(mQuery);
+            loader.setTypeAhead(mIsTypeAhead);
             return loader;
         }
 
@@ -110,7 +120,9 @@ public class SearchFragment extends LoadingListFragmentBase implements
             new LoaderCallbacks<List<SearchUser>>(this) {
         @Override
         protected Loader<LoaderResult<List<SearchUser>>> onCreateLoader() {
-            return new UserSearchLoader(getActivity(), mQuery);
+            UserSearchLoader loader = new UserSearchLoader(getActivity(), mQuery);
+            loader.setTypeAhead(mIsTypeAhead);
+            return loader;
         }
 
         @Override
@@ -125,7 +137,9 @@ public class SearchFragment extends LoadingListFragmentBase implements
             new LoaderCallbacks<List<CodeSearchResult>>(this) {
         @Override
         protected Loader<LoaderResult<List<CodeSearchResult>>> onCreateLoader() {
-            return new CodeSearchLoader(getActivity(), mQuery);
+            CodeSearchLoader loader = new CodeSearchLoader(getActivity(), mQuery);
+            loader.setTypeAhead(mIsTypeAhead);
+            return loader;
         }
 
         @Override
@@ -179,6 +193,19 @@ public class SearchFragment extends LoadingListFragmentBase implements
     private SearchView mSearch;
     private int mInitialSearchType;
     private String mQuery;
+    private boolean mIsTypeAhead;
+
+    private final Handler mHandler = new Handler();
+    private final Runnable mTypeAheadRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // don't spend the small search budget on queries the user didn't ask for yet
+            RequestScheduler scheduler = Gh4Application.get().getRequestScheduler();
+            if (scheduler.isSearchAvailable(RequestScheduler.PRIORITY_PREFETCH)) {
+                startSearch(true);
+            }
+        }
+    };
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -245,9 +272,21 @@ public class SearchFragment extends LoadingListFragmentBase implements
         super.onSaveInstanceState(outState);
     }
 
+    @Override
+    public void onDestroyView() {
+        mHandler.removeCallbacks(mTypeAheadRunnable);
+        super.onDestroyView();
+    }
+
     @Override
     public void onRefresh() {
         if (mAdapter != null) {
+            Loader loader = getLoaderManager().getLoader(0);
+            if (loader instanceof SearchLoader) {
+                SearchLoader searchLoader = (SearchLoader) loader;
+                searchLoader.setTypeAhead(false);
+                searchLoader.invalidateCachedResult();
+            }
             hideContentAndRestartLoaders(0);
         }
     }
@@ -283,16 +322,11 @@ public class SearchFragment extends LoadingListFragmentBase implements
 
     @Override
     public boolean onQueryTextSubmit(String query) {
-        LoaderManager lm = getLoaderManager();
-        int type = mSearchType.getSelectedItemPosition();
-        switch (type) {
-            case SEARCH_TYPE_USER: lm.restartLoader(0, null, mUserCallback); break;
-            case SEARCH_TYPE_CODE: lm.restartLoader(0, null, mCodeCallback); break;
-            default: lm.restartLoader(0, null, mRepoCallback); break;
-        }
+        mHandler.removeCallbacks(mTypeAheadRunnable);
         mQuery = query;
+        startSearch(false);
         if (!StringUtils.isBlank(query)) {
-            new SaveSearchSuggestionTask(query, type).schedule();
+            new SaveSearchSuggestionTask(query, mSearchType.getSelectedItemPosition()).schedule();
         }
         setContentShown(false);
         mSearch.clearFocus();
@@ -301,6 +335,18 @@ public class SearchFragment extends LoadingListFragmentBase implements
 
     @Override
     public boolean onQueryTextChange(String newText) {
+        if (!TextUtils.equals(newText, mQuery)) {
+            // the result of a search still running is outdated now
+            mHandler.removeCallbacks(mTypeAheadRunnable);
+            Loader loader = getLoaderManager().getLoader(0);
+            if (loader != null) {
+                loader.cancelLoad();
+            }
+            if (newText.trim().length() >= MIN_TYPE_AHEAD_LENGTH) {
+                mHandler.postDelayed(mTypeAheadRunnable, TYPE_AHEAD_DELAY);
+            }
+        }
+
         CursorAdapter adapter = mSearch.getSuggestionsAdapter();
         if (adapter != null) {
             Cursor cursor = adapter.getCursor();
@@ -366,6 +412,20 @@ public class SearchFragment extends LoadingListFragmentBase implements
         getLoaderManager().restartLoader(1, null, mSuggestionCallback);
     }
 
+    /**
+     * @param typeAhead Whether the search is started while the user is typing,
+     *                  see {@link SearchLoader#setTypeAhead(boolean)}
+     */
+    private void startSearch(boolean typeAhead) {
+        mIsTypeAhead = typeAhead;
+        LoaderManager lm = getLoaderManager();
+        switch (mSearchType.getSelectedItemPosition()) {
+            case SEARCH_TYPE_USER: lm.restartLoader(0, null, mUserCallback); break;
+            case SEARCH_TYPE_CODE: lm.restartLoader(0, null, mCodeCallback); break;
+            default: lm.restartLoader(0, null, mRepoCallback); break;
+        }
+    }
+
     private void setAdapter(RootAdapter<?, ?> adapter) {
         adapter.setOnItemClickListener(this);
         mRecyclerView.setAdapter(adapter);
@@ -20,6 +20,8 @@ import android.widget.TextView;
 import com.gh4a.Gh4Application;
 import com.gh4a.R;
 import com.gh4a.activities.IssueEditActivity;
+import com.gh4a.activities.NetworkStatsActivity;
+import com.gh4a.sync.NotificationsJobService;
 import com.gh4a.widget.IntegerListPreference;
 
 public class SettingsFragment extends PreferenceFragmentCompat implements
@@ -35,6 +37,7 @@ public class SettingsFragment extends PreferenceFragmentCompat implements
     public static final String KEY_START_PAGE = "start_page";
     public static final String KEY_TEXT_SIZE = "webview_initial_zoom";
     public static final String KEY_GIF_LOADING = "http_gif_load_mode";
+    public static final String KEY_NOTIFICATIONS = "notifications";
     private static final String KEY_LOGOUT = "logout";
     private static final String KEY_ABOUT = "about";
     private static final String KEY_OPEN_SOURCE_COMPONENTS = "open_source_components";
@@ -77,6 +80,10 @@ public class SettingsFragment extends PreferenceFragmentCompat implements
         mOpenSourcePref = findPreference(KEY_OPEN_SOURCE_COMPONENTS);
         mOpenSourcePref.setOnPreferenceClickListener(this);
 
+        if (!NotificationsJobService.isSupported()) {
+            getPreferenceScreen().removePreference(findPreference(KEY_NOTIFICATIONS));
+        }
+
         updateLogoutPrefState();
     }
 
@@ -146,6 +153,15 @@ public class SettingsFragment extends PreferenceFragmentCompat implements
 
             TextView tvCopyright = (TextView) findViewById(R.id.copyright);
             tvCopyright.setText(R.string.copyright_notice);
+            // hidden entry point to the network statistics debug screen
+            tvCopyright.setOnLongClickListener(new View.OnLongClickListener() {
+                @Override
+                public boolean onLongClick(View view) {
+                    Context context = getContext();
+                    context.startActivity(NetworkStatsActivity.makeIntent(context));
+                    return true;
+                }
+            });
 
             findViewById(R.id.btn_by_email).setOnClickListener(this);
 
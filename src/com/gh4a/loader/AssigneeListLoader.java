@@ -3,13 +3,17 @@ package com.gh4a.loader;
 import java.io.IOException;
 import java.util.List;
 
-import org.eclipse.egit.github.core.RepositoryId;
 import org.eclipse.egit.github.core.User;
 import org.eclipse.egit.github.core.service.RepositoryService;
 
 import android.content.Context;
 
 import com.gh4a.Gh4Application;
+import com.gh4a.ParallelPageCollector;
+import com.google.gson.reflect.TypeToken;
+
+import static org.eclipse.egit.github.core.client.IGitHubConstants.SEGMENT_ASSIGNEES;
+import static org.eclipse.egit.github.core.client.IGitHubConstants.SEGMENT_REPOS;
 
 public class AssigneeListLoader extends BaseLoader<List<User>> {
     private final String mRepoOwner;
@@ -25,6 +29,8 @@ public class AssigneeListLoader extends BaseLoader<List<User>> {
     public List<User> doLoadInBackground() throws IOException {
         RepositoryService repoService = (RepositoryService)
                 Gh4Application.get().getService(Gh4Application.REPO_SERVICE);
-        return repoService.getAssignees(new RepositoryId(mRepoOwner, mRepoName));
+        return ParallelPageCollector.getAll(repoService.getClient(),
+                SEGMENT_REPOS + "/" + mRepoOwner + "/" + mRepoName + SEGMENT_ASSIGNEES,
+                new TypeToken<List<User>>() {}.getType());
     }
 }
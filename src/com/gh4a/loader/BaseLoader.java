@@ -1,13 +1,23 @@
 package com.gh4a.loader;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.v4.content.AsyncTaskLoader;
 import android.util.Log;
 
+import com.gh4a.CancellationToken;
+import com.gh4a.DefaultClient;
 import com.gh4a.Gh4Application;
+import com.gh4a.RequestScheduler;
 
 public abstract class BaseLoader<T> extends AsyncTaskLoader<LoaderResult<T>> {
     private T mPrefilledData;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private volatile boolean mHasDeliveredData;
+    private volatile CancellationToken mCancellationToken;
+    // only accessed on the main thread
+    private T mCachedResult;
 
     public BaseLoader(Context context) {
         super(context);
@@ -22,12 +32,35 @@ public abstract class BaseLoader<T> extends AsyncTaskLoader<LoaderResult<T>> {
 
     @Override
     public LoaderResult<T> loadInBackground() {
+        if (!mHasDeliveredData && deliversCachedData()) {
+            deliverCachedData();
+        }
+        CancellationToken token = new CancellationToken();
+        mCancellationToken = token;
+        DefaultClient.setRequestPriority(getRequestPriority());
+        DefaultClient.setCancellationToken(token);
         try {
             T data = doLoadInBackground();
             return new LoaderResult<>(data);
+        } catch (CancellationToken.CancelledException e) {
+            // the result is going to be discarded anyway
+            return new LoaderResult<>(e);
         } catch (Exception e) {
             Log.e(Gh4Application.LOG_TAG, e.getMessage(), e);
             return new LoaderResult<>(e);
+        } finally {
+            DefaultClient.setRequestPriority(RequestScheduler.PRIORITY_FOREGROUND);
+            DefaultClient.setCancellationToken(null);
+            mCancellationToken = null;
+        }
+    }
+
+    @Override
+    public void cancelLoadInBackground() {
+        super.cancelLoadInBackground();
+        CancellationToken token = mCancellationToken;
+        if (token != null) {
+            token.cancel();
         }
     }
 
@@ -44,10 +77,79 @@ public abstract class BaseLoader<T> extends AsyncTaskLoader<LoaderResult<T>> {
         }
     }
 
+    @Override
+    public void deliverResult(LoaderResult<T> data) {
+        mHasDeliveredData = true;
+        if (data.getData() != mCachedResult) {
+            mCachedResult = null;
+        }
+        super.deliverResult(data);
+    }
+
+    /**
+     * @return Whether the given result was delivered from the response cache
+     *         while the initial load was still waiting for the network,
+     *         see {@link #deliversCachedData()}
+     */
+    public boolean isCachedResult(T data) {
+        return data != null && data == mCachedResult;
+    }
+
     @Override
     protected void onStopLoading() {
         cancelLoad();
     }
 
+    @Override
+    protected void onReset() {
+        super.onReset();
+        mHasDeliveredData = false;
+        mCachedResult = null;
+    }
+
+    /**
+     * Priority used for scheduling the API requests done by this loader.
+     * Loaders whose results aren't essential for the current screen should
+     * return a lower priority than the default.
+     */
+    protected int getRequestPriority() {
+        return RequestScheduler.PRIORITY_FOREGROUND;
+    }
+
+    /**
+     * Whether data available in the response cache should be delivered while the
+     * initial load is still waiting for the network. Only loaders exclusively doing
+     * GET requests can be served from the cache.
+     */
+    protected boolean deliversCachedData() {
+        return false;
+    }
+
+    private void deliverCachedData() {
+        final T data;
+        DefaultClient.setCacheOnly(true);
+        try {
+            data = doLoadInBackground();
+        } catch (Exception e) {
+            // nothing (or not everything) is cached, wait for the network
+            return;
+        } finally {
+            DefaultClient.setCacheOnly(false);
+        }
+
+        if (data == null) {
+            return;
+        }
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (isStarted() && !mHasDeliveredData) {
+                    mCachedResult = data;
+                    deliverResult(new LoaderResult<>(data));
+                }
+            }
+        });
+    }
+
     protected abstract T doLoadInBackground() throws Exception;
 }
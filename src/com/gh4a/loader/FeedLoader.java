@@ -12,6 +12,8 @@ import javax.net.ssl.SSLSession;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
+import org.eclipse.egit.github.core.okhttp.OkHttpProvider;
+
 import android.content.Context;
 
 import com.gh4a.feeds.FeedHandler;
@@ -36,7 +38,7 @@ public class FeedLoader extends BaseLoader<List<Feed>> {
         BufferedInputStream bis = null;
         try {
             URL url = new URL(mUrl);
-            URLConnection request = url.openConnection();
+            URLConnection request = OkHttpProvider.getOkHttpClient().open(url);
 
             if (request instanceof HttpsURLConnection) {
                 ((HttpsURLConnection) request).setHostnameVerifier(DO_NOT_VERIFY);
@@ -2,20 +2,51 @@ package com.gh4a.loader;
 
 import android.content.Context;
 
+import com.gh4a.DefaultClient;
 import com.gh4a.Gh4Application;
+import com.gh4a.ParallelCalls;
+import com.gh4a.ParallelPageCollector;
+import com.google.gson.reflect.TypeToken;
 
 import org.eclipse.egit.github.core.Comment;
 import org.eclipse.egit.github.core.IssueEvent;
-import org.eclipse.egit.github.core.RepositoryId;
-import org.eclipse.egit.github.core.service.IssueService;
+import org.eclipse.egit.github.core.client.GitHubClient;
+import org.eclipse.egit.github.core.client.NoSuchPageException;
+import org.eclipse.egit.github.core.client.PageIterator;
+import org.eclipse.egit.github.core.client.PagedRequest;
+import org.eclipse.egit.github.core.service.GitHubService;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
+/**
+ * Loads the timeline (comments and events) of an issue. The loader keeps the
+ * result of its previous load, so reloading it (e.g. on refresh or after
+ * posting a comment) only fetches comments updated since then and events
+ * following the known ones. Holders of unchanged entries are reused, so
+ * callers can tell which entries of the new result are new.
+ * The sources of the timeline are loaded concurrently, and as each of them is
+ * sorted already, they're combined by merging instead of sorting.
+ * For issues with very many comments, only the first and last comments are
+ * loaded at first. The entries in between are represented by a gap entry
+ * (see {@link IssueEventHolder#isGap()}) and loaded chunk by chunk on request,
+ * see {@link #expandGap()}.
+ */
 public class IssueCommentListLoader extends BaseLoader<List<IssueEventHolder>> {
     private final boolean mIsPullRequest;
 
@@ -23,6 +54,20 @@ public class IssueCommentListLoader extends BaseLoader<List<IssueEventHolder>> {
     protected final String mRepoName;
     protected final int mIssueNumber;
 
+    private final IncrementalCommentList<Comment> mComments;
+    // events are append-only, so the number of loaded ones tells where to continue
+    private List<IssueEventHolder> mEvents;
+    private int mLoadedEventCount;
+    // only accessed by the load in progress
+    private IssueEventHolder mGapHolder;
+
+    // maximum allowed by the API; explicitly chosen so the page size doesn't change
+    // between loads, as the page to continue at is derived from it
+    private static final int EVENT_PAGE_SIZE = 100;
+
+    private static final Type COMMENT_LIST_TYPE = new TypeToken<List<Comment>>() {}.getType();
+    private static final Type EVENT_LIST_TYPE = new TypeToken<List<IssueEvent>>() {}.getType();
+
     private static final List<String> INTERESTING_EVENTS = Arrays.asList(
         IssueEvent.TYPE_CLOSED, IssueEvent.TYPE_REOPENED, IssueEvent.TYPE_MERGED,
         IssueEvent.TYPE_REFERENCED, IssueEvent.TYPE_ASSIGNED, IssueEvent.TYPE_UNASSIGNED,
@@ -50,28 +95,415 @@ public class IssueCommentListLoader extends BaseLoader<List<IssueEventHolder>> {
         mRepoName = repoName;
         mIssueNumber = issueNumber;
         mIsPullRequest = isPullRequest;
+        mComments = new IncrementalCommentList<Comment>(getRepoUri() + "/issues/"
+                + issueNumber + "/comments", COMMENT_LIST_TYPE, true) {
+            @Override
+            protected IssueEventHolder makeHolder(Comment comment) {
+                return new IssueEventHolder(comment, mIsPullRequest);
+            }
+        };
+    }
+
+    /**
+     * Makes the next load drop the given comment, which was deleted. Needed as
+     * the since parameter only reports updated comments, not deleted ones.
+     */
+    public void forgetComment(Comment comment) {
+        mComments.forget(comment.getId());
+    }
+
+    /**
+     * Makes the next load fetch the next chunk of the comments hidden in the
+     * gap, if there is one.
+     */
+    public void expandGap() {
+        mComments.expandGap();
+    }
+
+    @Override
+    protected boolean deliversCachedData() {
+        return true;
     }
 
     @Override
     protected List<IssueEventHolder> doLoadInBackground() throws IOException {
-        IssueService issueService = (IssueService)
-                Gh4Application.get().getService(Gh4Application.ISSUE_SERVICE);
-        List<Comment> comments = issueService.getComments(
-                new RepositoryId(mRepoOwner, mRepoName), mIssueNumber);
-        List<IssueEvent> events = issueService.getIssueEvents(mRepoOwner, mRepoName, mIssueNumber);
+        ParallelCalls calls = new ParallelCalls();
+        List<List<IssueEventHolder>> sources;
+        try {
+            sources = loadTimeline(getClient(), calls);
+        } finally {
+            calls.cancel();
+        }
+        List<IssueEventHolder> events = merge(sources);
+        Gap gap = mComments.getGap();
+        if (gap == null) {
+            mGapHolder = null;
+            return events;
+        }
+
+        // hide everything that happened while the hidden comments were written
         List<IssueEventHolder> result = new ArrayList<>();
+        int hiddenCount = gap.getCommentCount();
+        int gapPosition = -1;
+        for (IssueEventHolder holder : events) {
+            Date createdAt = holder.getCreatedAt();
+            if (gap.contains(createdAt)) {
+                hiddenCount++;
+            } else {
+                if (gapPosition < 0 && createdAt.after(gap.start)) {
+                    gapPosition = result.size();
+                }
+                result.add(holder);
+            }
+        }
+        if (mGapHolder == null || mGapHolder.hiddenItemCount != hiddenCount
+                || !mGapHolder.getCreatedAt().equals(gap.start)) {
+            mGapHolder = new IssueEventHolder(gap.start, hiddenCount);
+        }
+        result.add(gapPosition >= 0 ? gapPosition : result.size(), mGapHolder);
+
+        return result;
+    }
+
+    /**
+     * Loads the timeline entries from all sources. Independent requests should
+     * be submitted to calls, so they run concurrently.
+     *
+     * @return Entries of each source, each sorted by {@link #SORTER}, except
+     *         for the comments hidden in the gap
+     */
+    protected List<List<IssueEventHolder>> loadTimeline(final GitHubClient client,
+            ParallelCalls calls) throws IOException {
+        Future<List<IssueEventHolder>> comments = calls.submit(
+                new Callable<List<IssueEventHolder>>() {
+            @Override
+            public List<IssueEventHolder> call() throws IOException {
+                return mComments.load(client);
+            }
+        });
+        Future<List<IssueEventHolder>> events = calls.submit(
+                new Callable<List<IssueEventHolder>>() {
+            @Override
+            public List<IssueEventHolder> call() throws IOException {
+                return loadEvents(client);
+            }
+        });
 
-        for (Comment comment : comments) {
-            result.add(new IssueEventHolder(comment, mIsPullRequest));
+        List<List<IssueEventHolder>> result = new ArrayList<>();
+        result.add(calls.get(comments));
+        result.add(calls.get(events));
+        return result;
+    }
+
+    /**
+     * Merges the sorted lists into one sorted list. Entries with the same date
+     * are taken from the list that comes first.
+     */
+    private static List<IssueEventHolder> merge(List<List<IssueEventHolder>> lists) {
+        int totalSize = 0;
+        for (List<IssueEventHolder> list : lists) {
+            totalSize += list.size();
         }
-        for (IssueEvent event : events) {
+        List<IssueEventHolder> result = new ArrayList<>(totalSize);
+        int[] positions = new int[lists.size()];
+        while (result.size() < totalSize) {
+            int next = -1;
+            for (int i = 0; i < lists.size(); i++) {
+                List<IssueEventHolder> list = lists.get(i);
+                if (positions[i] < list.size() && (next < 0 || SORTER.compare(
+                        list.get(positions[i]), lists.get(next).get(positions[next])) < 0)) {
+                    next = i;
+                }
+            }
+            result.add(lists.get(next).get(positions[next]++));
+        }
+        return result;
+    }
+
+    protected String getRepoUri() {
+        return "/repos/" + mRepoOwner + "/" + mRepoName;
+    }
+
+    protected static GitHubClient getClient() {
+        GitHubService service = (GitHubService)
+                Gh4Application.get().getService(Gh4Application.ISSUE_SERVICE);
+        return service.getClient();
+    }
+
+    private List<IssueEventHolder> loadEvents(GitHubClient client) throws IOException {
+        boolean cacheOnly = DefaultClient.isCacheOnly();
+        boolean incremental = mEvents != null && !cacheOnly;
+        int knownCount = incremental ? mLoadedEventCount : 0;
+        int skipCount = knownCount % EVENT_PAGE_SIZE;
+
+        PagedRequest<IssueEvent> request = new PagedRequest<>(
+                knownCount / EVENT_PAGE_SIZE + PagedRequest.PAGE_FIRST, EVENT_PAGE_SIZE);
+        request.setUri(getRepoUri() + "/issues/" + mIssueNumber + "/events");
+        request.setType(EVENT_LIST_TYPE);
+        List<IssueEvent> events =
+                ParallelPageCollector.getAll(client, new PageIterator<>(request, client));
+
+        if (events.size() < skipCount) {
+            // events went missing, so we can't tell where to continue
+            mEvents = null;
+            return loadEvents(client);
+        }
+
+        List<IssueEventHolder> holders = incremental
+                ? new ArrayList<>(mEvents) : new ArrayList<IssueEventHolder>();
+        for (IssueEvent event : events.subList(skipCount, events.size())) {
             if (INTERESTING_EVENTS.contains(event.getEvent())) {
-                result.add(new IssueEventHolder(event, mIsPullRequest));
+                holders.add(new IssueEventHolder(event, mIsPullRequest));
             }
         }
+        if (!cacheOnly) {
+            mEvents = holders;
+            mLoadedEventCount = knownCount - skipCount + events.size();
+        }
+        return holders;
+    }
 
-        Collections.sort(result, SORTER);
+    /**
+     * Range of comment pages that weren't loaded, together with the creation
+     * dates of the loaded comments around it.
+     */
+    private static class Gap {
+        final int firstPage;
+        final int lastPage;
+        final Date start;
+        final Date end;
 
-        return result;
+        Gap(int firstPage, int lastPage, Date start, Date end) {
+            this.firstPage = firstPage;
+            this.lastPage = lastPage;
+            this.start = start;
+            this.end = end;
+        }
+
+        int getCommentCount() {
+            // only the last page of a list isn't full
+            return (lastPage - firstPage + 1) * IncrementalCommentList.WINDOW_PAGE_SIZE;
+        }
+
+        boolean contains(Date date) {
+            return date.after(start) && date.before(end);
+        }
+    }
+
+    /**
+     * Comments of one kind as of the previous load, keyed by id. Reloads only
+     * ask for comments updated since then and keep the holders of all others.
+     * Windowed lists initially skip the middle pages if there are many of them,
+     * see {@link Gap}.
+     */
+    protected abstract static class IncrementalCommentList<C extends Comment> {
+        // explicitly chosen, so the page numbers of the gap stay valid between loads
+        private static final int WINDOW_PAGE_SIZE = 50;
+        // lists with fewer pages are loaded completely
+        private static final int MIN_WINDOWED_PAGES = 6;
+        // the last page may contain only a few comments, so also show the one before
+        private static final int TAIL_PAGES = 2;
+        private static final int GAP_PAGES_PER_EXPANSION = 4;
+
+        private final String mUri;
+        private final Type mType;
+        private final boolean mWindowed;
+        private final Set<Long> mForgottenIds = Collections.synchronizedSet(new HashSet<Long>());
+        private volatile boolean mExpandGap;
+        private Map<Long, IssueEventHolder> mHolders;
+        private Date mUpdatedUpTo;
+        private Gap mGap;
+        // gap of the load in progress, which isn't stored in cache-only mode
+        private Gap mLoadedGap;
+
+        protected IncrementalCommentList(String uri, Type type) {
+            this(uri, type, false);
+        }
+
+        protected IncrementalCommentList(String uri, Type type, boolean windowed) {
+            mUri = uri;
+            mType = type;
+            mWindowed = windowed;
+        }
+
+        public void forget(long id) {
+            mForgottenIds.add(id);
+        }
+
+        public void expandGap() {
+            mExpandGap = true;
+        }
+
+        /**
+         * @return Gap of the last load, or null if all comments were loaded
+         */
+        Gap getGap() {
+            return mLoadedGap;
+        }
+
+        /**
+         * @return The loaded comments sorted by {@link #SORTER}, except for
+         *         those within the gap
+         */
+        public List<IssueEventHolder> load(GitHubClient client) throws IOException {
+            boolean cacheOnly = DefaultClient.isCacheOnly();
+            boolean incremental = mHolders != null && !cacheOnly;
+            Gap gap = null;
+
+            List<C> comments;
+            if (incremental) {
+                PagedRequest<C> request =
+                        makeRequest(PagedRequest.PAGE_FIRST, PagedRequest.PAGE_SIZE);
+                if (mUpdatedUpTo != null) {
+                    request.setParams(Collections.singletonMap("since", formatDate(mUpdatedUpTo)));
+                }
+                comments = ParallelPageCollector.getAll(client, client.createPageIterator(request));
+                gap = mGap;
+                if (gap != null && mExpandGap) {
+                    mExpandGap = false;
+                    gap = loadGapPages(client, gap, comments);
+                }
+            } else if (mWindowed) {
+                comments = new ArrayList<>();
+                gap = loadWindow(client, comments);
+            } else {
+                PagedRequest<C> request =
+                        makeRequest(PagedRequest.PAGE_FIRST, PagedRequest.PAGE_SIZE);
+                comments = ParallelPageCollector.getAll(client, client.createPageIterator(request));
+            }
+
+            Map<Long, IssueEventHolder> holders = new LinkedHashMap<>();
+            Date updatedUpTo = null;
+            if (incremental) {
+                holders.putAll(mHolders);
+                updatedUpTo = mUpdatedUpTo;
+                synchronized (mForgottenIds) {
+                    for (Long id : mForgottenIds) {
+                        holders.remove(id);
+                    }
+                    mForgottenIds.clear();
+                }
+            }
+            for (C comment : comments) {
+                IssueEventHolder existing = holders.get(comment.getId());
+                if (existing == null || !existing.getUpdatedAt().equals(comment.getUpdatedAt())) {
+                    holders.put(comment.getId(), makeHolder(comment));
+                }
+                if (updatedUpTo == null || comment.getUpdatedAt().after(updatedUpTo)) {
+                    updatedUpTo = comment.getUpdatedAt();
+                }
+            }
+
+            List<IssueEventHolder> sorted = new ArrayList<>(holders.values());
+            if (!isSorted(sorted)) {
+                // comments were added that aren't the newest ones (e.g. from the
+                // gap), so restore the order for this and the following loads
+                Collections.sort(sorted, SORTER);
+                holders.clear();
+                for (IssueEventHolder holder : sorted) {
+                    holders.put(holder.comment.getId(), holder);
+                }
+            }
+
+            if (!cacheOnly) {
+                mHolders = holders;
+                mUpdatedUpTo = updatedUpTo;
+                mGap = gap;
+            }
+            mLoadedGap = gap;
+
+            if (gap == null) {
+                return sorted;
+            }
+            // comments in the gap that were reported as updated are kept for later
+            List<IssueEventHolder> result = new ArrayList<>();
+            for (IssueEventHolder holder : sorted) {
+                if (!gap.contains(holder.getCreatedAt())) {
+                    result.add(holder);
+                }
+            }
+            return result;
+        }
+
+        private static boolean isSorted(List<IssueEventHolder> holders) {
+            for (int i = 1; i < holders.size(); i++) {
+                if (SORTER.compare(holders.get(i - 1), holders.get(i)) > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Loads the first page and, if there are many pages, only the last ones.
+         *
+         * @return The pages that were skipped, or null if all were loaded
+         */
+        private Gap loadWindow(GitHubClient client, List<C> comments) throws IOException {
+            PageIterator<C> iterator = new PageIterator<>(
+                    makeRequest(PagedRequest.PAGE_FIRST, WINDOW_PAGE_SIZE), client);
+            try {
+                comments.addAll(iterator.next());
+            } catch (NoSuchPageException e) {
+                throw e.getCause();
+            }
+
+            PagedRequest<C> template = makeRequest(PagedRequest.PAGE_FIRST, WINDOW_PAGE_SIZE);
+            int lastPage = iterator.getLastPage();
+            if (lastPage < PagedRequest.PAGE_FIRST + MIN_WINDOWED_PAGES - 1) {
+                if (lastPage > PagedRequest.PAGE_FIRST) {
+                    comments.addAll(ParallelPageCollector.getPages(client, template,
+                            PagedRequest.PAGE_FIRST + 1, lastPage));
+                }
+                return null;
+            }
+
+            int tailPage = lastPage - TAIL_PAGES + 1;
+            List<C> tail = ParallelPageCollector.getPages(client, template, tailPage, lastPage);
+            if (comments.isEmpty() || tail.isEmpty()) {
+                // comments were deleted in the meantime, so better load everything
+                comments.addAll(ParallelPageCollector.getPages(client, template,
+                        PagedRequest.PAGE_FIRST + 1, tailPage - 1));
+                comments.addAll(tail);
+                return null;
+            }
+            Gap gap = new Gap(PagedRequest.PAGE_FIRST + 1, tailPage - 1,
+                    comments.get(comments.size() - 1).getCreatedAt(), tail.get(0).getCreatedAt());
+            comments.addAll(tail);
+            return gap;
+        }
+
+        /**
+         * Loads the next pages of the gap into comments.
+         *
+         * @return The remaining gap, or null if it's closed
+         */
+        private Gap loadGapPages(GitHubClient client, Gap gap, List<C> comments)
+                throws IOException {
+            int lastPage = Math.min(gap.firstPage + GAP_PAGES_PER_EXPANSION - 1, gap.lastPage);
+            List<C> loaded = ParallelPageCollector.getPages(client,
+                    makeRequest(gap.firstPage, WINDOW_PAGE_SIZE), gap.firstPage, lastPage);
+            comments.addAll(loaded);
+            if (lastPage == gap.lastPage || loaded.isEmpty()) {
+                return null;
+            }
+            return new Gap(lastPage + 1, gap.lastPage,
+                    loaded.get(loaded.size() - 1).getCreatedAt(), gap.end);
+        }
+
+        private PagedRequest<C> makeRequest(int page, int pageSize) {
+            PagedRequest<C> request = new PagedRequest<>(page, pageSize);
+            request.setUri(mUri);
+            request.setType(mType);
+            return request;
+        }
+
+        protected abstract IssueEventHolder makeHolder(C comment) throws IOException;
+
+        private static String formatDate(Date date) {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return format.format(date);
+        }
     }
 }
@@ -13,38 +13,86 @@ public class IssueEventHolder {
     public final IssueEvent event;
     public final CommitFile file;
     public final boolean isPullRequestEvent;
+    // only set for gaps, see IssueEventHolder(Date, int)
+    public final int hiddenItemCount;
+    private final Date mGapDate;
 
     public IssueEventHolder(Comment comment, boolean isPullRequestEvent) {
         this.comment = comment;
         this.event = null;
         this.file = null;
         this.isPullRequestEvent = isPullRequestEvent;
+        this.hiddenItemCount = 0;
+        this.mGapDate = null;
     }
     public IssueEventHolder(CommitComment comment, CommitFile file) {
         this.comment = comment;
         this.event = null;
         this.file = file;
         this.isPullRequestEvent = true;
+        this.hiddenItemCount = 0;
+        this.mGapDate = null;
     }
     public IssueEventHolder(IssueEvent event, boolean isPullRequestEvent) {
         this.comment = null;
         this.event = event;
         this.file = null;
         this.isPullRequestEvent = isPullRequestEvent;
+        this.hiddenItemCount = 0;
+        this.mGapDate = null;
+    }
+
+    /**
+     * Creates a placeholder for timeline entries that weren't loaded yet.
+     *
+     * @param date Position of the gap in the timeline
+     * @param hiddenItemCount Number of entries in the gap, possibly estimated
+     */
+    public IssueEventHolder(Date date, int hiddenItemCount) {
+        this.comment = null;
+        this.event = null;
+        this.file = null;
+        this.isPullRequestEvent = false;
+        this.hiddenItemCount = hiddenItemCount;
+        this.mGapDate = date;
+    }
+
+    public boolean isGap() {
+        return mGapDate != null;
+    }
+
+    /**
+     * @return Key identifying the timeline entry across loads, even if
+     *         its holder or the holder's data was replaced
+     */
+    public String getKey() {
+        if (comment != null) {
+            return (comment instanceof CommitComment ? "review:" : "comment:") + comment.getId();
+        }
+        return event != null ? "event:" + event.getId() : "gap";
     }
 
     public Date getCreatedAt() {
-        return comment != null ? comment.getCreatedAt() : event.getCreatedAt();
+        if (comment != null) {
+            return comment.getCreatedAt();
+        }
+        return event != null ? event.getCreatedAt() : mGapDate;
     }
 
     public Date getUpdatedAt() {
-        return comment != null ? comment.getUpdatedAt() : event.getCreatedAt();
+        if (comment != null) {
+            return comment.getUpdatedAt();
+        }
+        return event != null ? event.getCreatedAt() : mGapDate;
     }
 
     public User getUser() {
         if (comment != null) {
             return comment.getUser();
         }
+        if (event == null) {
+            return null;
+        }
         return event.getAssigner() != null ? event.getAssigner() : event.getActor();
     }
 }
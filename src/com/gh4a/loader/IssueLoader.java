@@ -22,6 +22,11 @@ public class IssueLoader extends BaseLoader<Issue> {
         mIssueNumber = issueNumber;
     }
 
+    @Override
+    protected boolean deliversCachedData() {
+        return true;
+    }
+
     @Override
     public Issue doLoadInBackground() throws IOException {
         IssueService issueService = (IssueService)
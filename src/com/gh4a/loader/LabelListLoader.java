@@ -9,6 +9,11 @@ import org.eclipse.egit.github.core.service.LabelService;
 import android.content.Context;
 
 import com.gh4a.Gh4Application;
+import com.gh4a.ParallelPageCollector;
+import com.google.gson.reflect.TypeToken;
+
+import static org.eclipse.egit.github.core.client.IGitHubConstants.SEGMENT_LABELS;
+import static org.eclipse.egit.github.core.client.IGitHubConstants.SEGMENT_REPOS;
 
 public class LabelListLoader extends BaseLoader<List<Label>> {
 
@@ -25,6 +30,8 @@ public class LabelListLoader extends BaseLoader<List<Label>> {
     public List<Label> doLoadInBackground() throws IOException {
         LabelService labelService = (LabelService)
                 Gh4Application.get().getService(Gh4Application.LABEL_SERVICE);
-        return labelService.getLabels(mRepoOwner, mRepoName);
+        return ParallelPageCollector.getAll(labelService.getClient(),
+                SEGMENT_REPOS + "/" + mRepoOwner + "/" + mRepoName + SEGMENT_LABELS,
+                new TypeToken<List<Label>>() {}.getType());
     }
 }
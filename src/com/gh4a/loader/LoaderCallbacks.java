@@ -4,6 +4,7 @@ import android.os.Bundle;
 import android.support.v4.content.Loader;
 
 import com.gh4a.BaseActivity;
+import com.gh4a.Gh4Application;
 
 public abstract class LoaderCallbacks<T> implements
         android.support.v4.app.LoaderManager.LoaderCallbacks<LoaderResult<T>> {
@@ -28,6 +29,7 @@ public abstract class LoaderCallbacks<T> implements
         BaseActivity activity = mCb.getBaseActivity();
         if (result.isSuccess()) {
             onResultReady(result.getData());
+            Gh4Application.get().onContentShown();
         } else if (result.isAuthError()) {
             activity.handleAuthFailureDuringLoad();
         } else if (!onError(result.getException())) {
@@ -1,14 +1,16 @@
 package com.gh4a.loader;
 
+import com.gh4a.sync.NotificationGroup;
+
 import java.util.Date;
 import java.util.List;
 
 public class NotificationListLoadResult {
-    public final List<NotificationHolder> notifications;
+    public final List<NotificationGroup> groups;
     public final Date loadTime;
 
-    public NotificationListLoadResult(List<NotificationHolder> notifications) {
-        this.notifications = notifications;
-        loadTime = new Date();
+    public NotificationListLoadResult(List<NotificationGroup> groups, Date loadTime) {
+        this.groups = groups;
+        this.loadTime = loadTime;
     }
 }
@@ -2,73 +2,50 @@ package com.gh4a.loader;
 
 import android.content.Context;
 
+import com.gh4a.DefaultClient;
 import com.gh4a.Gh4Application;
+import com.gh4a.sync.NotificationGroup;
+import com.gh4a.sync.NotificationPoller;
+import com.gh4a.sync.NotificationStore;
 
-import org.eclipse.egit.github.core.Notification;
-import org.eclipse.egit.github.core.Repository;
-import org.eclipse.egit.github.core.User;
-import org.eclipse.egit.github.core.service.NotificationService;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 
 public class NotificationListLoader extends BaseLoader<NotificationListLoadResult> {
-
-    private static final Comparator<Notification> SORTER = new Comparator<Notification>() {
-        @Override
-        public int compare(Notification lhs, Notification rhs) {
-            Repository lhsRepository = lhs.getRepository();
-            Repository rhsRepository = rhs.getRepository();
-
-            if (!lhsRepository.equals(rhsRepository)) {
-                User lhsOwner = lhsRepository.getOwner();
-                User rhsOwner = rhsRepository.getOwner();
-
-                if (!lhsOwner.equals(rhsOwner)) {
-                    return lhsOwner.getLogin().compareTo(rhsOwner.getLogin());
-                }
-
-                return lhsRepository.getName().compareTo(rhsRepository.getName());
-            }
-
-            return rhs.getUpdatedAt().compareTo(lhs.getUpdatedAt());
-        }
-    };
+    private final boolean mForceRefresh;
 
     public NotificationListLoader(Context context) {
+        this(context, false);
+    }
+
+    /**
+     * @param forceRefresh Whether to ask the server for changes even if the
+     *                     stored notifications were polled only recently
+     */
+    public NotificationListLoader(Context context, boolean forceRefresh) {
         super(context);
+        mForceRefresh = forceRefresh;
     }
 
     @Override
-    protected NotificationListLoadResult doLoadInBackground() throws Exception {
-        NotificationService notificationService = (NotificationService)
-                Gh4Application.get().getService(Gh4Application.NOTIFICATION_SERVICE);
-        List<Notification> notifications = notificationService.getNotifications();
-        Collections.sort(notifications, SORTER);
-
-        Repository previousRepository = null;
-        List<NotificationHolder> result = new ArrayList<>();
+    protected boolean deliversCachedData() {
+        return true;
+    }
 
-        for (Notification notification : notifications) {
-            Repository repository = notification.getRepository();
-            if (!repository.equals(previousRepository)) {
-                int size = result.size();
-                if (size > 0) {
-                    result.get(size - 1).setIsLastRepositoryNotification(true);
-                }
-                result.add(new NotificationHolder(repository));
-            }
-            result.add(new NotificationHolder(notification));
-            previousRepository = repository;
+    @Override
+    protected NotificationListLoadResult doLoadInBackground() throws Exception {
+        NotificationStore store = Gh4Application.get().getNotificationStore();
+        if (!DefaultClient.isCacheOnly()) {
+            NotificationPoller.poll(store, mForceRefresh);
+            // the user is going to see them, so don't notify about them anymore
+            store.takeUnnotified();
         }
 
-        int size = result.size();
-        if (size > 0) {
-            result.get(size - 1).setIsLastRepositoryNotification(true);
+        List<NotificationGroup> groups = store.getGroups();
+        if (groups == null) {
+            // nothing stored yet
+            return null;
         }
-
-        return new NotificationListLoadResult(result);
+        return new NotificationListLoadResult(groups, new Date(store.getLastPollTime()));
     }
 }
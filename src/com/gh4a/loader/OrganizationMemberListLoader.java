@@ -9,6 +9,11 @@ import org.eclipse.egit.github.core.service.OrganizationService;
 import android.content.Context;
 
 import com.gh4a.Gh4Application;
+import com.gh4a.ParallelPageCollector;
+import com.google.gson.reflect.TypeToken;
+
+import static org.eclipse.egit.github.core.client.IGitHubConstants.SEGMENT_MEMBERS;
+import static org.eclipse.egit.github.core.client.IGitHubConstants.SEGMENT_ORGS;
 
 public class OrganizationMemberListLoader extends BaseLoader<List<User>> {
 
@@ -23,6 +28,8 @@ public class OrganizationMemberListLoader extends BaseLoader<List<User>> {
     public List<User> doLoadInBackground() throws IOException {
         OrganizationService orgService = (OrganizationService)
                 Gh4Application.get().getService(Gh4Application.ORG_SERVICE);
-        return orgService.getMembers(mUserLogin);
+        return ParallelPageCollector.getAll(orgService.getClient(),
+                SEGMENT_ORGS + "/" + mUserLogin + SEGMENT_MEMBERS,
+                new TypeToken<List<User>>() {}.getType());
     }
 }
@@ -1,68 +1,223 @@
 package com.gh4a.loader;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
 
 import org.eclipse.egit.github.core.client.NoSuchPageException;
 import org.eclipse.egit.github.core.client.PageIterator;
 
 import android.content.Context;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.v4.content.AsyncTaskLoader;
 import android.util.Log;
 
+import com.gh4a.CancellationToken;
+import com.gh4a.DefaultClient;
 import com.gh4a.Gh4Application;
+import com.gh4a.RequestScheduler;
 
 public class PageIteratorLoader<T> extends AsyncTaskLoader<LoaderResult<PageIteratorLoader<T>.LoadedPage>> {
     private final PageIterator<T> mPageIterator;
-    private ArrayList<T> mPreviouslyLoadedData;
+    // only accessed with mIteratorLock held
+    private final PagedList<T> mLoadedData = new PagedList<>();
+
+    // held while talking to the page iterator, which isn't thread safe
+    private final Object mIteratorLock = new Object();
+    // guards the prefetch state below
+    private final Object mPrefetchLock = new Object();
+    private final LinkedList<Collection<T>> mPrefetchedPages = new LinkedList<>();
+    private int mPrefetchDepth;
+    private boolean mPrefetchRunning;
+    private boolean mPrefetchStopRequested;
+    private CancellationToken mPrefetchToken;
+    private boolean mIteratorNeedsReset;
+    private int mGeneration;
+    private volatile CancellationToken mCancellationToken;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Implemented by page iterators which keep a local copy of their data.
+     * While the first page is loaded, the local copy of it is delivered, so
+     * that there's something to show without waiting for the network.
+     */
+    public interface LocalFirstPageSource<T> {
+        Collection<T> getLocalFirstPage();
+    }
 
     public class LoadedPage {
-        public final Collection<T> results;
+        public final PagedList<T> results;
+        public final Collection<T> newResults;
         public final boolean hasMoreData;
-        private LoadedPage(Collection<T> r, boolean hmd) {
+        private LoadedPage(PagedList<T> r, Collection<T> nr, boolean hmd) {
             results = r;
+            newResults = nr;
             hasMoreData = hmd;
         }
+
+        /**
+         * @return Number of items that were already delivered before this page
+         */
+        public int getPreviousCount() {
+            return results.size() - newResults.size();
+        }
     }
 
     public PageIteratorLoader(Context context, PageIterator<T> pageIterator) {
         super(context);
         mPageIterator = pageIterator;
-        mPreviouslyLoadedData = new ArrayList<>();
         onContentChanged();
     }
 
     @Override
     public void onContentChanged() {
         super.onContentChanged();
-        mPageIterator.reset();
-        mPreviouslyLoadedData.clear();
+        resetIterator();
     }
 
     @Override
     protected void onReset() {
         super.onReset();
-        mPageIterator.reset();
-        mPreviouslyLoadedData.clear();
+        cancelPrefetch();
+        resetIterator();
+    }
+
+    /**
+     * Fetches up to the given number of pages following the already delivered
+     * data in the background, so that the next {@link #forceLoad()} can hand
+     * them out without waiting for the network. Prefetch requests run with
+     * {@link RequestScheduler#PRIORITY_PREFETCH}; failures are ignored, as the
+     * next regular load will retry and report them. When a regular load starts,
+     * a prefetch request still waiting for the scheduler is cancelled, so the
+     * load doesn't have to wait for it, while a page that is already being
+     * downloaded is finished and handed to the load.
+     */
+    public void prefetch(int depth) {
+        synchronized (mPrefetchLock) {
+            mPrefetchDepth = depth;
+            if (mPrefetchRunning || mPrefetchedPages.size() >= depth) {
+                return;
+            }
+            mPrefetchRunning = true;
+            mPrefetchStopRequested = false;
+            mPrefetchToken = new CancellationToken();
+        }
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(mPrefetchRunnable);
     }
 
     @Override
     public LoaderResult<LoadedPage> loadInBackground() {
-        if (mPageIterator.hasNext()) {
+        // the prefetch holds the iterator while its requests may be delayed by the scheduler
+        stopPrefetch();
+        CancellationToken token = new CancellationToken();
+        mCancellationToken = token;
+        DefaultClient.setCancellationToken(token);
+        try {
+            return loadPage();
+        } finally {
+            DefaultClient.setCancellationToken(null);
+            mCancellationToken = null;
+        }
+    }
+
+    @Override
+    public void cancelLoadInBackground() {
+        super.cancelLoadInBackground();
+        CancellationToken token = mCancellationToken;
+        if (token != null) {
+            token.cancel();
+        }
+        cancelPrefetch();
+    }
+
+    private void cancelPrefetch() {
+        CancellationToken token;
+        synchronized (mPrefetchLock) {
+            token = mPrefetchToken;
+        }
+        if (token != null) {
+            token.cancel();
+        }
+    }
+
+    /**
+     * Makes a running prefetch stop after its current page. If that page's request
+     * hasn't been sent yet, it's cancelled; otherwise {@link #loadPage()} waits for
+     * the download to finish and takes the page from {@link #mPrefetchedPages}.
+     */
+    private void stopPrefetch() {
+        CancellationToken token;
+        synchronized (mPrefetchLock) {
+            mPrefetchStopRequested = true;
+            token = mPrefetchToken;
+        }
+        if (token != null) {
+            token.cancelIfQueued();
+        }
+    }
+
+    private LoaderResult<LoadedPage> loadPage() {
+        synchronized (mIteratorLock) {
+            Collection<T> newData;
+            int generation;
+            boolean isFirstPage;
+            synchronized (mPrefetchLock) {
+                newData = mPrefetchedPages.poll();
+                generation = mGeneration;
+                isFirstPage = mIteratorNeedsReset || mLoadedData.isEmpty();
+            }
+
+            if (newData == null && isFirstPage
+                    && mPageIterator instanceof LocalFirstPageSource) {
+                deliverLocalFirstPage(((LocalFirstPageSource<T>) mPageIterator).getLocalFirstPage());
+            }
+
             try {
-                Collection<T> newData = mPageIterator.next();
-                mPreviouslyLoadedData = new ArrayList<>(mPreviouslyLoadedData);
-                mPreviouslyLoadedData.addAll(newData);
+                if (newData == null) {
+                    newData = fetchNextPage(generation);
+                }
+                if (newData != null) {
+                    mLoadedData.appendPage(newData);
+                } else {
+                    newData = Collections.emptyList();
+                }
             } catch (NoSuchPageException e) {
+                if (e.getCause() instanceof CancellationToken.CancelledException) {
+                    // the result is going to be discarded anyway
+                    return new LoaderResult<>(e);
+                }
                 // should only happen in case of an empty repo
-                return new LoaderResult<>(new LoadedPage(mPreviouslyLoadedData, false));
+                return new LoaderResult<>(new LoadedPage(mLoadedData.snapshot(),
+                        Collections.<T>emptyList(), false));
             } catch (Exception e) {
                 Log.e(Gh4Application.LOG_TAG, e.getMessage(), e);
                 return new LoaderResult<>(e);
             }
+
+            return new LoaderResult<>(new LoadedPage(mLoadedData.snapshot(),
+                    newData, hasMoreData()));
         }
+    }
 
-        return new LoaderResult<>(new LoadedPage(mPreviouslyLoadedData, mPageIterator.hasNext()));
+    private void deliverLocalFirstPage(Collection<T> page) {
+        if (page.isEmpty()) {
+            return;
+        }
+        PagedList<T> results = new PagedList<>();
+        results.appendPage(page);
+        // claim there's no more data, as further pages can't be loaded before
+        // the actual first page is there
+        final LoadedPage loadedPage = new LoadedPage(results, page, false);
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (isStarted()) {
+                    deliverResult(new LoaderResult<>(loadedPage));
+                }
+            }
+        });
     }
 
     @Override
@@ -75,5 +230,85 @@ public class PageIteratorLoader<T> extends AsyncTaskLoader<LoaderResult<PageIter
     @Override
     protected void onStopLoading() {
         cancelLoad();
+        cancelPrefetch();
     }
+
+    private void resetIterator() {
+        // The actual reset is done by the next background fetch, as a prefetch
+        // might be in progress; bumping the generation makes it drop its result.
+        synchronized (mPrefetchLock) {
+            mGeneration++;
+            mPrefetchedPages.clear();
+            mIteratorNeedsReset = true;
+        }
+    }
+
+    // must be called with mIteratorLock held
+    private Collection<T> fetchNextPage(int generation) {
+        synchronized (mPrefetchLock) {
+            if (generation != mGeneration) {
+                return null;
+            }
+            if (mIteratorNeedsReset) {
+                mPageIterator.reset();
+                mLoadedData.clear();
+                mIteratorNeedsReset = false;
+            }
+        }
+        return mPageIterator.hasNext() ? mPageIterator.next() : null;
+    }
+
+    // must be called with mIteratorLock held
+    private boolean hasMoreData() {
+        synchronized (mPrefetchLock) {
+            return !mPrefetchedPages.isEmpty() || mPageIterator.hasNext();
+        }
+    }
+
+    private final Runnable mPrefetchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            final CancellationToken token;
+            synchronized (mPrefetchLock) {
+                token = mPrefetchToken;
+            }
+            DefaultClient.setRequestPriority(RequestScheduler.PRIORITY_PREFETCH);
+            DefaultClient.setCancellationToken(token);
+            try {
+                while (true) {
+                    synchronized (mIteratorLock) {
+                        int generation;
+                        synchronized (mPrefetchLock) {
+                            if (token.isCancelled() || mPrefetchStopRequested
+                                    || mPrefetchedPages.size() >= mPrefetchDepth) {
+                                break;
+                            }
+                            generation = mGeneration;
+                        }
+
+                        Collection<T> page = fetchNextPage(generation);
+                        if (page == null) {
+                            break;
+                        }
+                        synchronized (mPrefetchLock) {
+                            if (generation != mGeneration) {
+                                // reset while fetching, the page is stale
+                                break;
+                            }
+                            mPrefetchedPages.add(page);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                Log.d(Gh4Application.LOG_TAG, "Prefetching next page failed", e);
+            } finally {
+                DefaultClient.setRequestPriority(RequestScheduler.PRIORITY_FOREGROUND);
+                DefaultClient.setCancellationToken(null);
+                synchronized (mPrefetchLock) {
+                    mPrefetchRunning = false;
+                    mPrefetchToken = null;
+                }
+            }
+        }
+    };
 }
@@ -0,0 +1,79 @@
+package com.gh4a.loader;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only list made up of the pages loaded so far. Appending a page
+ * doesn't touch the previously loaded items, and snapshots only copy the
+ * page references, so that handing out the accumulated data after each page
+ * costs O(number of pages) instead of O(number of items).
+ */
+public class PagedList<T> extends AbstractList<T> {
+    private final ArrayList<List<T>> mPages;
+    // mPageStarts[i] is the index of the first item of page i
+    private final ArrayList<Integer> mPageStarts;
+    private int mSize;
+
+    public PagedList() {
+        mPages = new ArrayList<>();
+        mPageStarts = new ArrayList<>();
+    }
+
+    private PagedList(PagedList<T> other) {
+        mPages = new ArrayList<>(other.mPages);
+        mPageStarts = new ArrayList<>(other.mPageStarts);
+        mSize = other.mSize;
+    }
+
+    public void appendPage(Collection<T> page) {
+        if (page.isEmpty()) {
+            return;
+        }
+        mPages.add(Collections.unmodifiableList(new ArrayList<>(page)));
+        mPageStarts.add(mSize);
+        mSize += page.size();
+    }
+
+    public int getPageCount() {
+        return mPages.size();
+    }
+
+    public List<T> getPage(int index) {
+        return mPages.get(index);
+    }
+
+    /**
+     * @return A copy of this list which isn't affected by pages appended later
+     */
+    public PagedList<T> snapshot() {
+        return new PagedList<>(this);
+    }
+
+    public void clear() {
+        mPages.clear();
+        mPageStarts.clear();
+        mSize = 0;
+    }
+
+    @Override
+    public T get(int location) {
+        if (location < 0 || location >= mSize) {
+            throw new IndexOutOfBoundsException("Index " + location + ", size " + mSize);
+        }
+        int page = Collections.binarySearch(mPageStarts, location);
+        if (page < 0) {
+            // not the first item of a page -> insertion point is the following page
+            page = -page - 2;
+        }
+        return mPages.get(page).get(location - mPageStarts.get(page));
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+}
@@ -3,16 +3,22 @@ package com.gh4a.loader;
 import android.content.Context;
 
 import com.gh4a.Gh4Application;
+import com.gh4a.ParallelCalls;
 
 import org.eclipse.egit.github.core.CommitComment;
 import org.eclipse.egit.github.core.CommitFile;
 import org.eclipse.egit.github.core.RepositoryId;
+import org.eclipse.egit.github.core.client.GitHubClient;
 import org.eclipse.egit.github.core.service.PullRequestService;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 public class PullRequestCommentListLoader extends IssueCommentListLoader {
 
@@ -22,30 +28,49 @@ public class PullRequestCommentListLoader extends IssueCommentListLoader {
     }
 
     @Override
-    public List<IssueEventHolder> doLoadInBackground() throws IOException {
-        // combine issue comments and pull request comments (to get comments on diff)
-        List<IssueEventHolder> events = super.doLoadInBackground();
-
-        PullRequestService pullRequestService = (PullRequestService)
+    protected List<List<IssueEventHolder>> loadTimeline(GitHubClient client,
+            final ParallelCalls calls) throws IOException {
+        final PullRequestService pullRequestService = (PullRequestService)
                 Gh4Application.get().getService(Gh4Application.PULL_SERVICE);
-        RepositoryId repoId = new RepositoryId(mRepoOwner, mRepoName);
-        List<CommitComment> commitComments = pullRequestService.getComments(repoId, mIssueNumber);
-        HashMap<String, CommitFile> filesByName = new HashMap<>();
-
-        for (CommitFile file : pullRequestService.getFiles(repoId, mIssueNumber)) {
-            filesByName.put(file.getFilename(), file);
-        }
-
-        // only add comment that is not outdated
-        for (CommitComment commitComment: commitComments) {
-            if (commitComment.getPosition() != -1) {
-                CommitFile file = filesByName.get(commitComment.getPath());
-                events.add(new IssueEventHolder(commitComment, file));
+        final RepositoryId repoId = new RepositoryId(mRepoOwner, mRepoName);
+
+        final Future<Map<String, CommitFile>> filesByName = calls.submit(
+                new Callable<Map<String, CommitFile>>() {
+            @Override
+            public Map<String, CommitFile> call() throws IOException {
+                Map<String, CommitFile> filesByName = new HashMap<>();
+                for (CommitFile file : pullRequestService.getFiles(repoId, mIssueNumber)) {
+                    filesByName.put(file.getFilename(), file);
+                }
+                return filesByName;
             }
-        }
+        });
+        // Review comments are always loaded completely: a push can make them outdated
+        // or move them within the diff without changing their updated_at date
+        Future<List<IssueEventHolder>> reviewComments = calls.submit(
+                new Callable<List<IssueEventHolder>>() {
+            @Override
+            public List<IssueEventHolder> call() throws IOException {
+                List<CommitComment> commitComments =
+                        pullRequestService.getComments(repoId, mIssueNumber);
+                Map<String, CommitFile> files = calls.get(filesByName);
 
-        Collections.sort(events, SORTER);
+                // only add comment that is not outdated
+                List<IssueEventHolder> result = new ArrayList<>();
+                for (CommitComment commitComment : commitComments) {
+                    if (commitComment.getPosition() != -1) {
+                        CommitFile file = files.get(commitComment.getPath());
+                        result.add(new IssueEventHolder(commitComment, file));
+                    }
+                }
+                Collections.sort(result, SORTER);
+                return result;
+            }
+        });
 
-        return events;
+        // combine issue comments and pull request comments (to get comments on diff)
+        List<List<IssueEventHolder>> sources = super.loadTimeline(client, calls);
+        sources.add(calls.get(reviewComments));
+        return sources;
     }
 }
@@ -0,0 +1,24 @@
+package com.gh4a.loader;
+
+import org.eclipse.egit.github.core.CommitStatus;
+import org.eclipse.egit.github.core.Issue;
+import org.eclipse.egit.github.core.PullRequest;
+
+import java.util.List;
+
+public class PullRequestDetail {
+    public final PullRequest pullRequest;
+    public final Issue issue;
+    public final boolean isCollaborator;
+    public final List<IssueEventHolder> events;
+    public final List<CommitStatus> statuses;
+
+    public PullRequestDetail(PullRequest pullRequest, Issue issue, boolean isCollaborator,
+            List<IssueEventHolder> events, List<CommitStatus> statuses) {
+        this.pullRequest = pullRequest;
+        this.issue = issue;
+        this.isCollaborator = isCollaborator;
+        this.events = events;
+        this.statuses = statuses;
+    }
+}
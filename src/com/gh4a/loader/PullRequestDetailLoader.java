@@ -0,0 +1,429 @@
+package com.gh4a.loader;
+
+import android.content.Context;
+
+import com.gh4a.Gh4Application;
+import com.gh4a.GraphQlClient;
+import com.google.gson.JsonObject;
+
+import org.eclipse.egit.github.core.Comment;
+import org.eclipse.egit.github.core.CommitComment;
+import org.eclipse.egit.github.core.CommitFile;
+import org.eclipse.egit.github.core.CommitStatus;
+import org.eclipse.egit.github.core.Issue;
+import org.eclipse.egit.github.core.IssueEvent;
+import org.eclipse.egit.github.core.Label;
+import org.eclipse.egit.github.core.Milestone;
+import org.eclipse.egit.github.core.PullRequest;
+import org.eclipse.egit.github.core.PullRequestMarker;
+import org.eclipse.egit.github.core.Rename;
+import org.eclipse.egit.github.core.Repository;
+import org.eclipse.egit.github.core.User;
+import org.eclipse.egit.github.core.service.GitHubService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.gh4a.GraphQlClient.getBoolean;
+import static com.gh4a.GraphQlClient.getDate;
+import static com.gh4a.GraphQlClient.getEnum;
+import static com.gh4a.GraphQlClient.getInt;
+import static com.gh4a.GraphQlClient.getLong;
+import static com.gh4a.GraphQlClient.getNodes;
+import static com.gh4a.GraphQlClient.getObject;
+import static com.gh4a.GraphQlClient.getString;
+import static com.gh4a.GraphQlClient.getTotalCount;
+
+/**
+ * Loads everything the pull request screen needs (pull request, issue,
+ * collaborator status, timeline including review comments and the status of
+ * the head commit) with a single GraphQL query, mapped onto the model
+ * classes used by the REST based loaders.
+ * The files of the pull request are only requested (via REST) if there are
+ * review comments, as GraphQL doesn't provide the patches needed for linking
+ * those to the diff.
+ * If the timeline is too long to be fetched at once, {@link PullRequestDetail#events}
+ * is null and needs to be loaded by {@link PullRequestCommentListLoader}.
+ */
+public class PullRequestDetailLoader extends BaseLoader<PullRequestDetail> {
+    private static final String QUERY = "query($owner: String!, $name: String!, $number: Int!) {"
+            + " repository(owner: $owner, name: $name) {"
+            + "  viewerPermission"
+            + "  pullRequest(number: $number) {"
+            + "   databaseId number title body bodyHTML url state merged mergeable"
+            + "   mergeStateStatus locked createdAt updatedAt closedAt mergedAt"
+            + "   additions deletions changedFiles"
+            + "   author { ...actor } mergedBy { ...actor }"
+            + "   comments { totalCount } commits { totalCount }"
+            + "   headRefName headRefOid headRepositoryOwner { login }"
+            + "   baseRefName baseRefOid baseRepository { name owner { ...actor } }"
+            + "   labels(first: 100) { nodes { name color } }"
+            + "   assignees(first: 20) { nodes { ...actor } }"
+            + "   milestone { number title description state dueOn }"
+            + "   timelineItems(first: 100, itemTypes: [ISSUE_COMMENT, CLOSED_EVENT,"
+            + "     REOPENED_EVENT, MERGED_EVENT, REFERENCED_EVENT, ASSIGNED_EVENT,"
+            + "     UNASSIGNED_EVENT, LABELED_EVENT, UNLABELED_EVENT, LOCKED_EVENT,"
+            + "     UNLOCKED_EVENT, MILESTONED_EVENT, DEMILESTONED_EVENT, RENAMED_TITLE_EVENT]) {"
+            + "    pageInfo { hasNextPage }"
+            + "    nodes {"
+            + "     __typename"
+            + "     ... on IssueComment {"
+            + "      databaseId body bodyHTML url createdAt updatedAt author { ...actor }"
+            + "     }"
+            + "     ... on ClosedEvent {"
+            + "      createdAt actor { ...actor } closer { ... on Commit { oid } }"
+            + "     }"
+            + "     ... on ReopenedEvent { createdAt actor { ...actor } }"
+            + "     ... on MergedEvent { createdAt actor { ...actor } commit { oid } }"
+            + "     ... on ReferencedEvent { createdAt actor { ...actor } commit { oid } }"
+            + "     ... on AssignedEvent { createdAt actor { ...actor } assignee { ...actor } }"
+            + "     ... on UnassignedEvent { createdAt actor { ...actor } assignee { ...actor } }"
+            + "     ... on LabeledEvent { createdAt actor { ...actor } label { name color } }"
+            + "     ... on UnlabeledEvent { createdAt actor { ...actor } label { name color } }"
+            + "     ... on LockedEvent { createdAt actor { ...actor } }"
+            + "     ... on UnlockedEvent { createdAt actor { ...actor } }"
+            + "     ... on MilestonedEvent { createdAt actor { ...actor } milestoneTitle }"
+            + "     ... on DemilestonedEvent { createdAt actor { ...actor } milestoneTitle }"
+            + "     ... on RenamedTitleEvent {"
+            + "      createdAt actor { ...actor } previousTitle currentTitle"
+            + "     }"
+            + "    }"
+            + "   }"
+            + "   reviews(first: 50) {"
+            + "    pageInfo { hasNextPage }"
+            + "    nodes {"
+            + "     comments(first: 100) {"
+            + "      pageInfo { hasNextPage }"
+            + "      nodes {"
+            + "       databaseId body bodyHTML url createdAt updatedAt path position"
+            + "       originalPosition diffHunk commit { oid } originalCommit { oid }"
+            + "       author { ...actor }"
+            + "      }"
+            + "     }"
+            + "    }"
+            + "   }"
+            + "   headCommit: commits(last: 1) {"
+            + "    nodes { commit { status { contexts {"
+            + "     context state description targetUrl createdAt creator { ...actor }"
+            + "    } } } }"
+            + "   }"
+            + "  }"
+            + " }"
+            + "}"
+            + "fragment actor on Actor {"
+            + " __typename login avatarUrl url"
+            + " ... on User { databaseId }"
+            + " ... on Bot { databaseId }"
+            + "}";
+
+    private static final List<String> COLLABORATOR_PERMISSIONS =
+            Arrays.asList("ADMIN", "MAINTAIN", "WRITE");
+
+    private static final Map<String, String> EVENT_TYPES = new HashMap<>();
+    static {
+        EVENT_TYPES.put("ClosedEvent", IssueEvent.TYPE_CLOSED);
+        EVENT_TYPES.put("ReopenedEvent", IssueEvent.TYPE_REOPENED);
+        EVENT_TYPES.put("MergedEvent", IssueEvent.TYPE_MERGED);
+        EVENT_TYPES.put("ReferencedEvent", IssueEvent.TYPE_REFERENCED);
+        EVENT_TYPES.put("AssignedEvent", IssueEvent.TYPE_ASSIGNED);
+        EVENT_TYPES.put("UnassignedEvent", IssueEvent.TYPE_UNASSIGNED);
+        EVENT_TYPES.put("LabeledEvent", IssueEvent.TYPE_LABELED);
+        EVENT_TYPES.put("UnlabeledEvent", IssueEvent.TYPE_UNLABELED);
+        EVENT_TYPES.put("LockedEvent", IssueEvent.TYPE_LOCKED);
+        EVENT_TYPES.put("UnlockedEvent", IssueEvent.TYPE_UNLOCKED);
+        EVENT_TYPES.put("MilestonedEvent", IssueEvent.TYPE_MILESTONED);
+        EVENT_TYPES.put("DemilestonedEvent", IssueEvent.TYPE_DEMILESTONED);
+        EVENT_TYPES.put("RenamedTitleEvent", IssueEvent.TYPE_RENAMED);
+    }
+
+    private final String mRepoOwner;
+    private final String mRepoName;
+    private final int mPullRequestNumber;
+
+    public PullRequestDetailLoader(Context context, String repoOwner, String repoName,
+            int pullRequestNumber) {
+        super(context);
+        mRepoOwner = repoOwner;
+        mRepoName = repoName;
+        mPullRequestNumber = pullRequestNumber;
+    }
+
+    @Override
+    protected PullRequestDetail doLoadInBackground() throws IOException {
+        GitHubService service = (GitHubService)
+                Gh4Application.get().getService(Gh4Application.PULL_SERVICE);
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("owner", mRepoOwner);
+        variables.put("name", mRepoName);
+        variables.put("number", mPullRequestNumber);
+
+        JsonObject data = new GraphQlClient(service.getClient()).query(QUERY, variables);
+        JsonObject repository = getObject(data, "repository");
+        JsonObject pr = getObject(repository, "pullRequest");
+        if (pr == null) {
+            throw new GraphQlClient.GraphQlException("Pull request not found");
+        }
+
+        PullRequest pullRequest = toPullRequest(pr);
+        Issue issue = toIssue(pr, pullRequest);
+        boolean isCollaborator =
+                COLLABORATOR_PERMISSIONS.contains(getString(repository, "viewerPermission"));
+        List<IssueEventHolder> events = toEvents(pr, issue);
+
+        List<CommitStatus> statuses = new ArrayList<>();
+        for (JsonObject node : getNodes(pr, "headCommit")) {
+            JsonObject status = getObject(getObject(node, "commit"), "status");
+            if (status != null) {
+                for (JsonObject context : GraphQlClient.getObjects(status, "contexts")) {
+                    statuses.add(toCommitStatus(context));
+                }
+            }
+        }
+
+        return new PullRequestDetail(pullRequest, issue, isCollaborator, events, statuses);
+    }
+
+    private PullRequest toPullRequest(JsonObject pr) {
+        String state = getString(pr, "state");
+        JsonObject baseRepo = getObject(pr, "baseRepository");
+        JsonObject headOwner = getObject(pr, "headRepositoryOwner");
+
+        Repository repo = new Repository();
+        repo.setName(baseRepo != null ? getString(baseRepo, "name") : mRepoName);
+        User repoOwner = toUser(getObject(baseRepo, "owner"));
+        repo.setOwner(repoOwner != null ? repoOwner : new User().setLogin(mRepoOwner));
+
+        PullRequestMarker base = new PullRequestMarker();
+        base.setRef(getString(pr, "baseRefName"));
+        base.setSha(getString(pr, "baseRefOid"));
+        base.setLabel(repo.getOwner().getLogin() + ":" + base.getRef());
+        base.setRepo(repo);
+
+        PullRequestMarker head = new PullRequestMarker();
+        head.setRef(getString(pr, "headRefName"));
+        head.setSha(getString(pr, "headRefOid"));
+        head.setLabel(headOwner != null
+                ? getString(headOwner, "login") + ":" + head.getRef() : head.getRef());
+
+        PullRequest pullRequest = new PullRequest();
+        pullRequest.setId(getLong(pr, "databaseId", 0));
+        pullRequest.setNumber(getInt(pr, "number", mPullRequestNumber));
+        pullRequest.setTitle(getString(pr, "title"));
+        pullRequest.setBody(getString(pr, "body"));
+        pullRequest.setBodyHtml(getString(pr, "bodyHTML"));
+        pullRequest.setHtmlUrl(getString(pr, "url"));
+        // the REST API reports merged pull requests as closed
+        pullRequest.setState("OPEN".equals(state) ? "open" : "closed");
+        pullRequest.setMerged(getBoolean(pr, "merged"));
+        pullRequest.setMergeable("MERGEABLE".equals(getString(pr, "mergeable")));
+        pullRequest.setMergeableState(getEnum(pr, "mergeStateStatus"));
+        pullRequest.setLocked(getBoolean(pr, "locked"));
+        pullRequest.setCreatedAt(getDate(pr, "createdAt"));
+        pullRequest.setUpdatedAt(getDate(pr, "updatedAt"));
+        pullRequest.setClosedAt(getDate(pr, "closedAt"));
+        pullRequest.setMergedAt(getDate(pr, "mergedAt"));
+        pullRequest.setAdditions(getInt(pr, "additions", 0));
+        pullRequest.setDeletions(getInt(pr, "deletions", 0));
+        pullRequest.setChangedFiles(getInt(pr, "changedFiles", 0));
+        pullRequest.setComments(getTotalCount(pr, "comments"));
+        pullRequest.setCommits(getTotalCount(pr, "commits"));
+        pullRequest.setUser(toUser(getObject(pr, "author")));
+        pullRequest.setMergedBy(toUser(getObject(pr, "mergedBy")));
+        pullRequest.setAssignees(toUsers(getNodes(pr, "assignees")));
+        pullRequest.setMilestone(toMilestone(getObject(pr, "milestone")));
+        pullRequest.setBase(base);
+        pullRequest.setHead(head);
+        return pullRequest;
+    }
+
+    private Issue toIssue(JsonObject pr, PullRequest pullRequest) {
+        List<Label> labels = new ArrayList<>();
+        for (JsonObject label : getNodes(pr, "labels")) {
+            labels.add(toLabel(label));
+        }
+
+        // the id of the issue backing a pull request isn't exposed by GraphQL, and the
+        // pull request's id is a different one, so leave it unset
+        Issue issue = new Issue();
+        issue.setNumber(pullRequest.getNumber());
+        issue.setTitle(pullRequest.getTitle());
+        issue.setBody(pullRequest.getBody());
+        issue.setBodyHtml(pullRequest.getBodyHtml());
+        issue.setHtmlUrl(pullRequest.getHtmlUrl());
+        issue.setState(pullRequest.getState());
+        issue.setLocked(pullRequest.isLocked());
+        issue.setCreatedAt(pullRequest.getCreatedAt());
+        issue.setUpdatedAt(pullRequest.getUpdatedAt());
+        issue.setClosedAt(pullRequest.getClosedAt());
+        issue.setComments(pullRequest.getComments());
+        issue.setUser(pullRequest.getUser());
+        issue.setAssignees(pullRequest.getAssignees());
+        issue.setMilestone(pullRequest.getMilestone());
+        issue.setLabels(labels);
+        issue.setPullRequest(pullRequest);
+        return issue;
+    }
+
+    private List<IssueEventHolder> toEvents(JsonObject pr, Issue issue) throws IOException {
+        JsonObject timeline = getObject(pr, "timelineItems");
+        JsonObject reviews = getObject(pr, "reviews");
+        boolean complete = !hasNextPage(timeline) && !hasNextPage(reviews);
+
+        List<IssueEventHolder> events = new ArrayList<>();
+        for (JsonObject node : getNodes(pr, "timelineItems")) {
+            String type = getString(node, "__typename");
+            if ("IssueComment".equals(type)) {
+                Comment comment = new Comment();
+                fillComment(comment, node);
+                events.add(new IssueEventHolder(comment, true));
+            } else if (EVENT_TYPES.containsKey(type)) {
+                IssueEvent event = toEvent(node, EVENT_TYPES.get(type));
+                if (IssueEvent.TYPE_CLOSED.equals(event.getEvent())) {
+                    issue.setClosedBy(event.getActor());
+                }
+                events.add(new IssueEventHolder(event, true));
+            }
+        }
+
+        List<CommitComment> reviewComments = new ArrayList<>();
+        for (JsonObject review : getNodes(pr, "reviews")) {
+            if (hasNextPage(getObject(review, "comments"))) {
+                complete = false;
+            }
+            for (JsonObject node : getNodes(review, "comments")) {
+                CommitComment comment = toCommitComment(node);
+                // like the REST API, only show comments that aren't outdated
+                if (comment.getPosition() != -1) {
+                    reviewComments.add(comment);
+                }
+            }
+        }
+        if (!complete) {
+            return null;
+        }
+
+        if (!reviewComments.isEmpty()) {
+            HashMap<String, CommitFile> filesByName = new HashMap<>();
+            for (CommitFile file : PullRequestFilesLoader.loadFiles(mRepoOwner, mRepoName,
+                    mPullRequestNumber)) {
+                filesByName.put(file.getFilename(), file);
+            }
+            for (CommitComment comment : reviewComments) {
+                events.add(new IssueEventHolder(comment, filesByName.get(comment.getPath())));
+            }
+        }
+
+        Collections.sort(events, IssueCommentListLoader.SORTER);
+        return events;
+    }
+
+    private static boolean hasNextPage(JsonObject connection) {
+        return getBoolean(getObject(connection, "pageInfo"), "hasNextPage");
+    }
+
+    private static void fillComment(Comment comment, JsonObject node) {
+        comment.setId(getLong(node, "databaseId", 0));
+        comment.setBody(getString(node, "body"));
+        comment.setBodyHtml(getString(node, "bodyHTML"));
+        comment.setHtmlUrl(getString(node, "url"));
+        comment.setCreatedAt(getDate(node, "createdAt"));
+        comment.setUpdatedAt(getDate(node, "updatedAt"));
+        comment.setUser(toUser(getObject(node, "author")));
+    }
+
+    private static CommitComment toCommitComment(JsonObject node) {
+        CommitComment comment = new CommitComment();
+        fillComment(comment, node);
+        comment.setPath(getString(node, "path"));
+        comment.setPosition(getInt(node, "position", -1));
+        comment.setOriginalPosition(getInt(node, "originalPosition", -1));
+        comment.setDiffHunk(getString(node, "diffHunk"));
+        comment.setCommitId(getString(getObject(node, "commit"), "oid"));
+        comment.setOriginalCommitId(getString(getObject(node, "originalCommit"), "oid"));
+        return comment;
+    }
+
+    private static IssueEvent toEvent(JsonObject node, String type) {
+        IssueEvent event = new IssueEvent();
+        event.setEvent(type);
+        event.setCreatedAt(getDate(node, "createdAt"));
+        event.setActor(toUser(getObject(node, "actor")));
+
+        JsonObject commit = getObject(node, type.equals(IssueEvent.TYPE_CLOSED) ? "closer" : "commit");
+        event.setCommitId(getString(commit, "oid"));
+        event.setAssignee(toUser(getObject(node, "assignee")));
+
+        JsonObject label = getObject(node, "label");
+        if (label != null) {
+            event.setLabel(toLabel(label));
+        }
+        String milestoneTitle = getString(node, "milestoneTitle");
+        if (milestoneTitle != null) {
+            event.setMilestone(new Milestone().setTitle(milestoneTitle));
+        }
+        if (type.equals(IssueEvent.TYPE_RENAMED)) {
+            Rename rename = new Rename();
+            rename.setFrom(getString(node, "previousTitle"));
+            rename.setTo(getString(node, "currentTitle"));
+            event.setRename(rename);
+        }
+        return event;
+    }
+
+    private static CommitStatus toCommitStatus(JsonObject node) {
+        CommitStatus status = new CommitStatus();
+        status.setContext(getString(node, "context"));
+        status.setState(getEnum(node, "state"));
+        status.setDescription(getString(node, "description"));
+        status.setTargetUrl(getString(node, "targetUrl"));
+        status.setCreatedAt(getDate(node, "createdAt"));
+        status.setCreator(toUser(getObject(node, "creator")));
+        return status;
+    }
+
+    private static Milestone toMilestone(JsonObject node) {
+        if (node == null) {
+            return null;
+        }
+        Milestone milestone = new Milestone();
+        milestone.setNumber(getInt(node, "number", 0));
+        milestone.setTitle(getString(node, "title"));
+        milestone.setDescription(getString(node, "description"));
+        milestone.setState(getEnum(node, "state"));
+        milestone.setDueOn(getDate(node, "dueOn"));
+        return milestone;
+    }
+
+    private static Label toLabel(JsonObject node) {
+        Label label = new Label();
+        label.setName(getString(node, "name"));
+        label.setColor(getString(node, "color"));
+        return label;
+    }
+
+    private static List<User> toUsers(List<JsonObject> nodes) {
+        List<User> users = new ArrayList<>(nodes.size());
+        for (JsonObject node : nodes) {
+            users.add(toUser(node));
+        }
+        return users;
+    }
+
+    private static User toUser(JsonObject node) {
+        if (node == null) {
+            return null;
+        }
+        User user = new User();
+        user.setLogin(getString(node, "login"));
+        user.setAvatarUrl(getString(node, "avatarUrl"));
+        user.setHtmlUrl(getString(node, "url"));
+        user.setId(getInt(node, "databaseId", 0));
+        user.setType(getString(node, "__typename"));
+        return user;
+    }
+}
@@ -23,6 +23,11 @@ public class PullRequestLoader extends BaseLoader<PullRequest> {
         mPullRequestNumber = pullRequestNumber;
     }
 
+    @Override
+    protected boolean deliversCachedData() {
+        return true;
+    }
+
     @Override
     public PullRequest doLoadInBackground() throws IOException {
         return loadPullRequest(mRepoOwner, mRepoName, mPullRequestNumber);
@@ -3,6 +3,7 @@ package com.gh4a.loader;
 import android.content.Context;
 
 import com.gh4a.Gh4Application;
+import com.gh4a.ParallelPageCollector;
 import com.gh4a.utils.ApiHelpers;
 
 import org.eclipse.egit.github.core.Repository;
@@ -35,19 +36,22 @@ public class RepositoryListLoader extends BaseLoader<Collection<Repository>> {
             if (mSize > 0) {
                 return repoService.pageRepositories(mFilterData, mSize).next();
             } else {
-                return repoService.getRepositories(mFilterData);
+                return ParallelPageCollector.getAll(repoService.getClient(),
+                        repoService.pageRepositories(mFilterData));
             }
         } else if (ApiHelpers.UserType.ORG.equals(mUserType)) {
             if (mSize > 0) {
                 return repoService.pageOrgRepositories(mLogin, mFilterData, mSize).next();
             } else {
-                return repoService.getOrgRepositories(mLogin, mFilterData);
+                return ParallelPageCollector.getAll(repoService.getClient(),
+                        repoService.pageOrgRepositories(mLogin, mFilterData));
             }
         } else {
             if (mSize > 0) {
                 return repoService.pageRepositories(mLogin, mFilterData, mSize).next();
             } else {
-                return repoService.getRepositories(mLogin, mFilterData);
+                return ParallelPageCollector.getAll(repoService.getClient(),
+                        repoService.pageRepositories(mLogin, mFilterData));
             }
         }
     }
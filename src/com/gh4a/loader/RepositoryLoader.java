@@ -20,6 +20,11 @@ public class RepositoryLoader extends BaseLoader<Repository> {
         this.mRepoName = repoName;
     }
 
+    @Override
+    protected boolean deliversCachedData() {
+        return true;
+    }
+
     @Override
     public Repository doLoadInBackground() throws IOException {
         RepositoryService repoService = (RepositoryService)
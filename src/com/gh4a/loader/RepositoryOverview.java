@@ -0,0 +1,20 @@
+package com.gh4a.loader;
+
+public class RepositoryOverview {
+    public static final int UNKNOWN = -1;
+
+    public final int openIssues;
+    public final int openPullRequests;
+    public final int releases;
+    public final int contributors;
+    public final long loadedAt;
+
+    public RepositoryOverview(int openIssues, int openPullRequests, int releases,
+            int contributors, long loadedAt) {
+        this.openIssues = openIssues;
+        this.openPullRequests = openPullRequests;
+        this.releases = releases;
+        this.contributors = contributors;
+        this.loadedAt = loadedAt;
+    }
+}
@@ -0,0 +1,167 @@
+package com.gh4a.loader;
+
+import android.content.Context;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+import com.gh4a.CancellationToken;
+import com.gh4a.Gh4Application;
+import com.gh4a.GraphQlClient;
+import com.gh4a.RequestScheduler;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+
+import org.eclipse.egit.github.core.Contributor;
+import org.eclipse.egit.github.core.PullRequest;
+import org.eclipse.egit.github.core.Release;
+import org.eclipse.egit.github.core.Repository;
+import org.eclipse.egit.github.core.client.GitHubClient;
+import org.eclipse.egit.github.core.client.NoSuchPageException;
+import org.eclipse.egit.github.core.client.PageIterator;
+import org.eclipse.egit.github.core.client.PagedRequest;
+import org.eclipse.egit.github.core.service.GitHubService;
+import org.eclipse.egit.github.core.service.RepositoryService;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.gh4a.GraphQlClient.getObject;
+import static com.gh4a.GraphQlClient.getTotalCount;
+
+/**
+ * Loads the counters shown on the repository overview. For authenticated
+ * users, issue, pull request and release counts are fetched with a single
+ * GraphQL query; otherwise they're derived from the last page link of single
+ * item REST pages. The contributor count isn't available via GraphQL, so it's
+ * always determined that way, and reported as unknown if that fails.
+ * Results are kept in memory for a few minutes, so switching between
+ * repositories doesn't cause a request burst.
+ */
+public class RepositoryOverviewLoader extends BaseLoader<RepositoryOverview> {
+    private static final long MAX_AGE = 5 * 60 * 1000L;
+
+    private static final LruCache<String, RepositoryOverview> sCache = new LruCache<>(30);
+
+    private static final String QUERY = "query($owner: String!, $name: String!) {"
+            + " repository(owner: $owner, name: $name) {"
+            + "  issues(states: OPEN) { totalCount }"
+            + "  pullRequests(states: OPEN) { totalCount }"
+            + "  releases { totalCount }"
+            + " }"
+            + "}";
+
+    private final Repository mRepository;
+
+    public RepositoryOverviewLoader(Context context, Repository repository) {
+        super(context);
+        mRepository = repository;
+    }
+
+    /**
+     * Drops the cached counters of the given repository, so that the next load
+     * fetches them again.
+     */
+    public static void invalidate(Repository repository) {
+        sCache.remove(makeKey(repository));
+    }
+
+    @Override
+    protected int getRequestPriority() {
+        // only used for decoration
+        return RequestScheduler.PRIORITY_BACKGROUND;
+    }
+
+    @Override
+    public RepositoryOverview doLoadInBackground() throws IOException {
+        String key = makeKey(mRepository);
+        RepositoryOverview cached = sCache.get(key);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt < MAX_AGE) {
+            return cached;
+        }
+
+        Gh4Application app = Gh4Application.get();
+        GitHubService service = (GitHubService) app.getService(Gh4Application.REPO_SERVICE);
+        GitHubClient client = service.getClient();
+        RepositoryOverview overview = app.isAuthorized()
+                ? loadViaGraphQl(client) : loadViaRest(client);
+
+        sCache.put(key, overview);
+        return overview;
+    }
+
+    private RepositoryOverview loadViaGraphQl(GitHubClient client) throws IOException {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("owner", mRepository.getOwner().getLogin());
+        variables.put("name", mRepository.getName());
+
+        JsonObject repo = getObject(new GraphQlClient(client).query(QUERY, variables), "repository");
+        if (repo == null) {
+            throw new IOException("Repository not found");
+        }
+
+        return new RepositoryOverview(getTotalCount(repo, "issues"),
+                getTotalCount(repo, "pullRequests"), getTotalCount(repo, "releases"),
+                loadContributorCount(client), System.currentTimeMillis());
+    }
+
+    private RepositoryOverview loadViaRest(GitHubClient client) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        params.put("state", "open");
+        int pullRequests = getCount(client, "pulls", params,
+                new TypeToken<List<PullRequest>>() {}.getType());
+        int releases = getCount(client, "releases", null,
+                new TypeToken<List<Release>>() {}.getType());
+
+        // the repository's issue count includes pull requests
+        return new RepositoryOverview(mRepository.getOpenIssues() - pullRequests,
+                pullRequests, releases, loadContributorCount(client),
+                System.currentTimeMillis());
+    }
+
+    private int loadContributorCount(GitHubClient client) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        params.put("anon", "1");
+        try {
+            return getCount(client, "contributors", params,
+                    new TypeToken<List<Contributor>>() {}.getType());
+        } catch (NoSuchPageException e) {
+            if (e.getCause() instanceof CancellationToken.CancelledException) {
+                throw e.getCause();
+            }
+            // e.g. the contributor list of very large repositories can't be listed,
+            // which shouldn't cost us the other counts
+            Log.d(Gh4Application.LOG_TAG, "Could not load contributor count", e);
+            return RepositoryOverview.UNKNOWN;
+        }
+    }
+
+    /**
+     * Requests the first page of a collection with one item per page; the
+     * number of the last page then equals the number of items.
+     */
+    private <V> int getCount(GitHubClient client, String collection,
+            Map<String, String> params, Type type) throws IOException {
+        PagedRequest<V> request = new PagedRequest<>(PagedRequest.PAGE_FIRST, 1);
+        request.setUri("/repos/" + mRepository.getOwner().getLogin() + "/"
+                + mRepository.getName() + "/" + collection);
+        request.setParams(params);
+        request.setType(type);
+
+        PageIterator<V> iterator = new PageIterator<>(request, client);
+        Collection<V> firstPage = iterator.next();
+        if (!iterator.hasNext()) {
+            // the contributors of an empty repository are reported as 204 No Content
+            return firstPage != null ? firstPage.size() : 0;
+        }
+        int lastPage = iterator.getLastPage();
+        return lastPage > 0 ? lastPage : RepositoryOverview.UNKNOWN;
+    }
+
+    private static String makeKey(Repository repository) {
+        return repository.getOwner().getLogin() + "/" + repository.getName();
+    }
+}
@@ -9,30 +9,24 @@ import org.eclipse.egit.github.core.client.RequestException;
 import org.eclipse.egit.github.core.service.RepositoryService;
 
 import android.content.Context;
-import android.text.TextUtils;
 
 import com.gh4a.Gh4Application;
 
-public class RepositorySearchLoader extends BaseLoader<List<Repository>> {
+public class RepositorySearchLoader extends SearchLoader<Repository> {
     private final String mUserLogin;
-    private String mQuery;
 
     public RepositorySearchLoader(Context context, String userLogin) {
-        super(context);
+        super(context, null);
         mUserLogin = userLogin;
     }
 
-    public void setQuery(String query) {
-        mQuery = query;
-        cancelLoad();
+    @Override
+    protected String getType() {
+        return mUserLogin != null ? "repositories/" + mUserLogin : "repositories";
     }
 
     @Override
-    public List<Repository> doLoadInBackground() throws Exception {
-        if (TextUtils.isEmpty(mQuery)) {
-            return new ArrayList<>();
-        }
-
+    protected List<Repository> doSearch(String query) throws Exception {
         RepositoryService repoService = (RepositoryService)
                 Gh4Application.get().getService(Gh4Application.REPO_SERVICE);
         HashMap<String, String> params = new HashMap<>();
@@ -44,7 +38,7 @@ public class RepositorySearchLoader extends BaseLoader<List<Repository>> {
         List<Repository> result;
 
         try {
-            result = repoService.searchRepositories(mQuery, params);
+            result = repoService.searchRepositories(query, params);
         } catch (RequestException e) {
             if (e.getStatus() == 422) {
                 // With that status code, Github wants to tell us there are no
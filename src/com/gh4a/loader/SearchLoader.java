@@ -0,0 +1,74 @@
+package com.gh4a.loader;
+
+import android.content.Context;
+import android.text.TextUtils;
+
+import com.gh4a.Gh4Application;
+import com.gh4a.RequestScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for loaders of search results. Results are kept in the
+ * {@link SearchResultCache}, so repeating a recent search doesn't cost a
+ * request of the search API's small budget.
+ */
+public abstract class SearchLoader<T> extends BaseLoader<List<T>> {
+    private String mQuery;
+    private boolean mIsTypeAhead;
+
+    public SearchLoader(Context context, String query) {
+        super(context);
+        mQuery = query;
+    }
+
+    public void setQuery(String query) {
+        mQuery = query;
+        cancelLoad();
+    }
+
+    /**
+     * Marks the search as started while the user is still typing, as opposed to
+     * an explicitly submitted one. Such searches are requested with prefetch
+     * priority, so they yield to other requests when the budget runs low.
+     */
+    public void setTypeAhead(boolean typeAhead) {
+        mIsTypeAhead = typeAhead;
+    }
+
+    /**
+     * Makes the next load ask the server again instead of using a cached result.
+     */
+    public void invalidateCachedResult() {
+        Gh4Application.get().getSearchResultCache().remove(getType(), mQuery);
+    }
+
+    @Override
+    protected int getRequestPriority() {
+        return mIsTypeAhead ? RequestScheduler.PRIORITY_PREFETCH : super.getRequestPriority();
+    }
+
+    @Override
+    protected List<T> doLoadInBackground() throws Exception {
+        String query = mQuery;
+        if (TextUtils.isEmpty(query)) {
+            return new ArrayList<>();
+        }
+
+        SearchResultCache cache = Gh4Application.get().getSearchResultCache();
+        List<T> result = cache.get(getType(), query);
+        if (result == null) {
+            result = doSearch(query);
+            cache.put(getType(), query, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return Kind of search, including everything besides the query that the
+     *         result depends on; used as key for the result cache
+     */
+    protected abstract String getType();
+    protected abstract List<T> doSearch(String query) throws Exception;
+}
@@ -0,0 +1,61 @@
+package com.gh4a.loader;
+
+import android.support.v4.util.LruCache;
+
+/**
+ * Recent search results, so that going back to an earlier query or search
+ * type doesn't need another request. Search results change quickly and the
+ * search API has a low rate limit anyway, so results are only kept in memory
+ * and only for a few minutes.
+ */
+public class SearchResultCache {
+    private static final int MAX_ENTRIES = 30;
+    private static final long MAX_AGE = 5 * 60 * 1000L;
+
+    private final LruCache<String, Entry> mEntries = new LruCache<>(MAX_ENTRIES);
+
+    private static class Entry {
+        final Object result;
+        final long time;
+
+        Entry(Object result, long time) {
+            this.result = result;
+            this.time = time;
+        }
+    }
+
+    /**
+     * @param type Kind of search, including everything besides the query that
+     *             the result depends on
+     * @return The cached result, or null if there is none or it's outdated
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T get(String type, String query) {
+        String key = makeKey(type, query);
+        Entry entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.time > MAX_AGE) {
+            mEntries.remove(key);
+            return null;
+        }
+        return (T) entry.result;
+    }
+
+    public synchronized void put(String type, String query, Object result) {
+        mEntries.put(makeKey(type, query), new Entry(result, System.currentTimeMillis()));
+    }
+
+    public synchronized void remove(String type, String query) {
+        mEntries.remove(makeKey(type, query));
+    }
+
+    public synchronized void clear() {
+        mEntries.evictAll();
+    }
+
+    private static String makeKey(String type, String query) {
+        return type + "\n" + query;
+    }
+}
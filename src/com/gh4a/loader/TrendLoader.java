@@ -3,15 +3,17 @@ package com.gh4a.loader;
 import android.content.Context;
 
 import com.gh4a.holder.Trend;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
+import org.eclipse.egit.github.core.okhttp.OkHttpProvider;
 
 import java.io.BufferedInputStream;
-import java.io.CharArrayWriter;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
@@ -28,54 +30,90 @@ public class TrendLoader extends BaseLoader<List<Trend>> {
         mType = type;
     }
 
+    public static URL getUrl(String type) throws MalformedURLException {
+        return new URL(String.format(Locale.US, URL_TEMPLATE, type));
+    }
+
     @Override
     public List<Trend> doLoadInBackground() throws Exception {
-        URL url = new URL(String.format(Locale.US, URL_TEMPLATE, mType));
-        List<Trend> trends = new ArrayList<>();
-
-        HttpURLConnection connection = null;
-        CharArrayWriter writer = null;
+        HttpURLConnection connection = OkHttpProvider.getOkHttpClient().open(getUrl(mType));
+        InputStream in = null;
 
         try {
-            connection = (HttpURLConnection) url.openConnection();
             connection.setRequestMethod("GET");
             connection.setRequestProperty("Content-Type", "application/json");
 
             if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
-                return trends;
+                connection.disconnect();
+                return new ArrayList<>();
             }
 
-            InputStream in = new BufferedInputStream(connection.getInputStream());
-            InputStreamReader reader = new InputStreamReader(in, "UTF-8");
-            int length = connection.getContentLength();
-            writer = new CharArrayWriter(Math.max(0, length));
-            char[] tmp = new char[4096];
-
-            int l;
-            while ((l = reader.read(tmp)) != -1) {
-                writer.write(tmp, 0, l);
-            }
+            // OkHttp transparently requests and decompresses gzip, so decode the
+            // trends straight from the network stream
+            in = new BufferedInputStream(connection.getInputStream());
+            return readTrends(in);
         } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
-            if (writer != null) {
-                writer.close();
+            // closing the fully read stream returns the connection to the pool
+            if (in != null) {
+                in.close();
             }
         }
+    }
 
-        JSONArray resultArray = new JSONArray(writer.toString());
-        for (int i = 0; i < resultArray.length(); i++) {
-            JSONObject repoObject = resultArray.getJSONObject(i);
-
-            trends.add(new Trend(
-                    repoObject.getString("owner"),
-                    repoObject.getString("repo"),
-                    repoObject.optString("description"),
-                    (int) repoObject.getDouble("stars"),
-                    (int) repoObject.getDouble("new_stars"),
-                    (int) repoObject.getDouble("forks")));
+    /**
+     * Parses a trend list without buffering it. The stream isn't closed.
+     */
+    public static List<Trend> readTrends(InputStream in) throws IOException {
+        List<Trend> trends = new ArrayList<>();
+        JsonReader reader = new JsonReader(new InputStreamReader(in, "UTF-8"));
+        reader.beginArray();
+        while (reader.hasNext()) {
+            trends.add(readTrend(reader));
         }
+        reader.endArray();
         return trends;
     }
+
+    private static Trend readTrend(JsonReader reader) throws IOException {
+        String owner = null, repo = null, description = "";
+        int stars = 0, newStars = 0, forks = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "owner":
+                    owner = reader.nextString();
+                    break;
+                case "repo":
+                    repo = reader.nextString();
+                    break;
+                case "description":
+                    description = reader.nextString();
+                    break;
+                case "stars":
+                    stars = (int) reader.nextDouble();
+                    break;
+                case "new_stars":
+                    newStars = (int) reader.nextDouble();
+                    break;
+                case "forks":
+                    forks = (int) reader.nextDouble();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+
+        if (owner == null || repo == null) {
+            throw new IOException("Trend entry without owner or repository name");
+        }
+        return new Trend(owner, repo, description, stars, newStars, forks);
+    }
 }
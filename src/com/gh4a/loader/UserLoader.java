@@ -18,6 +18,11 @@ public class UserLoader extends BaseLoader<User> {
         this.mLogin = login;
     }
 
+    @Override
+    protected boolean deliversCachedData() {
+        return true;
+    }
+
     @Override
     public User doLoadInBackground() throws IOException {
         UserService userService = (UserService)
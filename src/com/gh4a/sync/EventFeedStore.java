@@ -0,0 +1,223 @@
+package com.gh4a.sync;
+
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+import com.gh4a.Gh4Application;
+import com.google.gson.JsonParseException;
+
+import org.eclipse.egit.github.core.client.GsonUtils;
+import org.eclipse.egit.github.core.event.Event;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Local copy of event feeds (news feed, repository and user events), newest
+ * event first. Each feed is identified by a key (the feed's API URI) and kept
+ * in its own JSON file; recently used feeds are also kept in memory.
+ */
+public class EventFeedStore {
+    private static final String DIRECTORY_NAME = "event_feeds";
+    // the API doesn't return more than that per feed either
+    private static final int MAX_EVENTS = 300;
+    private static final int MAX_FEEDS_IN_MEMORY = 5;
+
+    private final File mDirectory;
+    private final LruCache<String, Feed> mFeeds = new LruCache<>(MAX_FEEDS_IN_MEMORY);
+
+    private static class Feed {
+        List<Event> events = new ArrayList<>();
+        // whether the events reach back to the oldest one the server has
+        boolean complete;
+        transient Set<String> ids;
+    }
+
+    public EventFeedStore(File directory) {
+        mDirectory = new File(directory, DIRECTORY_NAME);
+    }
+
+    public synchronized int getEventCount(String key) {
+        return getFeed(key).events.size();
+    }
+
+    /**
+     * @return Up to count stored events, starting at the given position
+     */
+    public synchronized List<Event> getEvents(String key, int start, int count) {
+        List<Event> events = getFeed(key).events;
+        int end = Math.min(start + count, events.size());
+        if (start >= end) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(events.subList(start, end));
+    }
+
+    public synchronized boolean contains(String key, String eventId) {
+        return getFeed(key).ids.contains(eventId);
+    }
+
+    public synchronized boolean isComplete(String key) {
+        return getFeed(key).complete;
+    }
+
+    /**
+     * Puts events that are newer than all stored ones in front of them.
+     */
+    public synchronized void prepend(String key, List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Feed feed = getFeed(key);
+        List<Event> merged = new ArrayList<>(events.size() + feed.events.size());
+        merged.addAll(events);
+        merged.addAll(feed.events);
+        setEvents(feed, merged, feed.complete);
+        save(key, feed);
+    }
+
+    /**
+     * Adds older events after the stored ones, skipping those that are stored
+     * already (the server's pages shift as new events come in).
+     *
+     * @param complete Whether the server has no events older than these
+     * @return Number of events that were actually added
+     */
+    public synchronized int append(String key, Collection<Event> events, boolean complete) {
+        Feed feed = getFeed(key);
+        List<Event> merged = new ArrayList<>(feed.events);
+        int added = 0;
+        for (Event event : events) {
+            if (!feed.ids.contains(event.getId())) {
+                merged.add(event);
+                added++;
+            }
+        }
+        if (added == 0 && feed.complete == complete) {
+            return 0;
+        }
+        setEvents(feed, merged, complete);
+        save(key, feed);
+        return added;
+    }
+
+    /**
+     * Replaces all stored events, e.g. because the new ones don't connect to the
+     * stored ones anymore.
+     *
+     * @param complete Whether the server has no events older than these
+     */
+    public synchronized void replace(String key, List<Event> events, boolean complete) {
+        Feed feed = getFeed(key);
+        setEvents(feed, new ArrayList<>(events), complete);
+        save(key, feed);
+    }
+
+    public synchronized void clear() {
+        mFeeds.evictAll();
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    Log.w(Gh4Application.LOG_TAG, "Could not delete " + file);
+                }
+            }
+        }
+    }
+
+    private static void setEvents(Feed feed, List<Event> events, boolean complete) {
+        if (events.size() > MAX_EVENTS) {
+            events = new ArrayList<>(events.subList(0, MAX_EVENTS));
+            complete = false;
+        }
+        feed.events = events;
+        feed.complete = complete;
+        buildIds(feed);
+    }
+
+    private static void buildIds(Feed feed) {
+        feed.ids = new HashSet<>();
+        for (Event event : feed.events) {
+            feed.ids.add(event.getId());
+        }
+    }
+
+    private Feed getFeed(String key) {
+        Feed feed = mFeeds.get(key);
+        if (feed == null) {
+            feed = load(key);
+            buildIds(feed);
+            mFeeds.put(key, feed);
+        }
+        return feed;
+    }
+
+    private File getFile(String key) {
+        return new File(mDirectory, key.replaceAll("[^A-Za-z0-9]", "_") + ".json");
+    }
+
+    private Feed load(String key) {
+        File file = getFile(key);
+        if (!file.exists()) {
+            return new Feed();
+        }
+        Reader reader = null;
+        try {
+            reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+            Feed feed = GsonUtils.getGson().fromJson(reader, Feed.class);
+            return feed != null && feed.events != null ? feed : new Feed();
+        } catch (IOException | JsonParseException e) {
+            Log.w(Gh4Application.LOG_TAG, "Could not read event feed " + key, e);
+            return new Feed();
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    private void save(String key, Feed feed) {
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            Log.w(Gh4Application.LOG_TAG, "Could not create " + mDirectory);
+            return;
+        }
+        // write to a temporary file first, so a crash doesn't leave a truncated feed
+        File file = getFile(key);
+        File temp = new File(file.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(temp), "UTF-8");
+            GsonUtils.getGson().toJson(feed, writer);
+            writer.close();
+            writer = null;
+            if (!temp.renameTo(file)) {
+                throw new IOException("Could not rename " + temp);
+            }
+        } catch (IOException e) {
+            Log.w(Gh4Application.LOG_TAG, "Could not write event feed " + key, e);
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
+    }
+}
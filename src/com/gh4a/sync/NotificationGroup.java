@@ -0,0 +1,23 @@
+package com.gh4a.sync;
+
+import org.eclipse.egit.github.core.Notification;
+import org.eclipse.egit.github.core.Repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The unread notifications of a single repository, newest first.
+ * Groups are never modified: {@link NotificationStore} replaces a group as a
+ * whole when its notifications change, so an unchanged group can be
+ * recognized by identity.
+ */
+public class NotificationGroup {
+    public final Repository repository;
+    public final List<Notification> notifications;
+
+    NotificationGroup(Repository repository, List<Notification> notifications) {
+        this.repository = repository;
+        this.notifications = Collections.unmodifiableList(notifications);
+    }
+}
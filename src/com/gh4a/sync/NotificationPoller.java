@@ -0,0 +1,129 @@
+package com.gh4a.sync;
+
+import com.gh4a.Gh4Application;
+import com.gh4a.ParallelPageCollector;
+import com.google.gson.reflect.TypeToken;
+
+import org.eclipse.egit.github.core.Notification;
+import org.eclipse.egit.github.core.client.GitHubClient;
+import org.eclipse.egit.github.core.client.GitHubResponse;
+import org.eclipse.egit.github.core.client.PageIterator;
+import org.eclipse.egit.github.core.client.PagedRequest;
+import org.eclipse.egit.github.core.service.GitHubService;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Brings the {@link NotificationStore} up to date with the server. Once the
+ * store is populated, only notifications changed since the last sync are
+ * requested and merged in, so the cost of a poll depends on the number of
+ * changes rather than on the number of unread notifications.
+ * The first page is requested conditionally (DefaultClient sends
+ * If-Modified-Since from the response cache), further pages are only fetched
+ * if Last-Modified shows the list changed. Polling more often than the
+ * server's X-Poll-Interval allows is skipped unless forced.
+ */
+public class NotificationPoller {
+    private static final String URI = "/notifications";
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    private static final String HEADER_POLL_INTERVAL = "X-Poll-Interval";
+    private static final String HEADER_DATE = "Date";
+    private static final String PARAM_SINCE = "since";
+    // maximum allowed by the API for this endpoint
+    private static final int PAGE_SIZE = 50;
+
+    private static final Type LIST_TYPE = new TypeToken<List<Notification>>() {}.getType();
+
+    private NotificationPoller() {
+    }
+
+    /**
+     * @param force Whether to poll even if the server asked to wait longer
+     *              (e.g. because the user explicitly asked for a refresh)
+     * @return Whether the stored notifications changed
+     */
+    public static boolean poll(NotificationStore store, boolean force) throws IOException {
+        boolean populated = store.isPopulated();
+        if (!force && populated && System.currentTimeMillis() < store.getNextPollTime()) {
+            return false;
+        }
+
+        GitHubService service = (GitHubService)
+                Gh4Application.get().getService(Gh4Application.NOTIFICATION_SERVICE);
+        GitHubClient client = service.getClient();
+
+        Date since = store.getSince();
+        PagedRequest<Notification> request = createRequest(PagedRequest.PAGE_FIRST, since);
+        GitHubResponse response = client.get(request);
+        int pollInterval = parsePollInterval(response.getHeader(HEADER_POLL_INTERVAL));
+        String lastModified = response.getHeader(HEADER_LAST_MODIFIED);
+
+        if (lastModified != null && lastModified.equals(store.getLastModified()) && populated) {
+            store.setNotModified(pollInterval);
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Notification> notifications =
+                new ArrayList<>((Collection<Notification>) response.getBody());
+        if (response.getNext() != null) {
+            PageIterator<Notification> iterator =
+                    new PageIterator<>(createRequest(PagedRequest.PAGE_FIRST + 1, since), client);
+            notifications.addAll(ParallelPageCollector.getAll(client, iterator));
+        }
+
+        long serverTime = parseServerTime(response.getHeader(HEADER_DATE));
+        if (since == null) {
+            store.update(notifications, lastModified, pollInterval, serverTime);
+            return true;
+        }
+        store.merge(notifications, lastModified, pollInterval, serverTime);
+        return !notifications.isEmpty();
+    }
+
+    private static PagedRequest<Notification> createRequest(int page, Date since) {
+        PagedRequest<Notification> request = new PagedRequest<>(page, PAGE_SIZE);
+        request.setUri(URI);
+        request.setType(LIST_TYPE);
+        if (since != null) {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            request.setParams(Collections.singletonMap(PARAM_SINCE, format.format(since)));
+        }
+        return request;
+    }
+
+    private static long parseServerTime(String value) {
+        if (value != null) {
+            SimpleDateFormat format =
+                    new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+            try {
+                return format.parse(value).getTime();
+            } catch (ParseException e) {
+                // fall back to our own clock
+            }
+        }
+        return System.currentTimeMillis();
+    }
+
+    private static int parsePollInterval(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
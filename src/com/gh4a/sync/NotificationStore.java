@@ -0,0 +1,381 @@
+package com.gh4a.sync;
+
+import android.util.Log;
+
+import com.gh4a.Gh4Application;
+import com.google.gson.JsonParseException;
+
+import org.eclipse.egit.github.core.Notification;
+import org.eclipse.egit.github.core.Repository;
+import org.eclipse.egit.github.core.client.GsonUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Local copy of the user's unread notifications as last received from the
+ * API, together with the state needed for polling them (Last-Modified and
+ * X-Poll-Interval of the last response, the time changes were fetched up to)
+ * and the time up to which system notifications were already shown.
+ * Everything is kept in a single JSON file, as it's always read and written
+ * as a whole. In memory, the notifications are additionally kept grouped by
+ * repository, so that merging in changes only touches the affected groups.
+ */
+public class NotificationStore {
+    private static final String FILE_NAME = "notifications.json";
+    private static final int DEFAULT_POLL_INTERVAL = 60;
+    // the since parameter doesn't catch notifications read elsewhere, so sync
+    // everything every now and then
+    private static final long FULL_SYNC_INTERVAL = 60 * 60 * 1000L;
+    // covers changes that weren't visible yet at the time of the last response
+    private static final long SINCE_OVERLAP = 60 * 1000L;
+
+    /**
+     * Order of the groups: by owner, then by name. Only compares names, so it's
+     * also cheaper than {@link Repository#equals}.
+     */
+    public static final Comparator<Repository> REPOSITORY_ORDER = new Comparator<Repository>() {
+        @Override
+        public int compare(Repository lhs, Repository rhs) {
+            int result = lhs.getOwner().getLogin().compareTo(rhs.getOwner().getLogin());
+            if (result == 0) {
+                result = lhs.getName().compareTo(rhs.getName());
+            }
+            return result;
+        }
+    };
+
+    private static final Comparator<Notification> NEWEST_FIRST = new Comparator<Notification>() {
+        @Override
+        public int compare(Notification lhs, Notification rhs) {
+            return rhs.getUpdatedAt().compareTo(lhs.getUpdatedAt());
+        }
+    };
+
+    private final File mFile;
+    private State mState;
+    private final Map<String, Notification> mNotificationsById = new HashMap<>();
+    private final TreeMap<Repository, NotificationGroup> mGroups = new TreeMap<>(REPOSITORY_ORDER);
+
+    private static class State {
+        String lastModified;
+        int pollInterval = DEFAULT_POLL_INTERVAL;
+        long lastPollTime;
+        long lastFullSyncTime;
+        long syncedUpTo;
+        long notifiedUpTo;
+        List<Notification> notifications;
+    }
+
+    public NotificationStore(File directory) {
+        mFile = new File(directory, FILE_NAME);
+    }
+
+    /**
+     * @return Whether notifications were fetched at least once
+     */
+    public synchronized boolean isPopulated() {
+        return getState().notifications != null;
+    }
+
+    /**
+     * @return The stored notifications grouped by repository, in
+     *         {@link #REPOSITORY_ORDER}, or null if they were never fetched
+     */
+    public synchronized List<NotificationGroup> getGroups() {
+        return isPopulated() ? new ArrayList<>(mGroups.values()) : null;
+    }
+
+    public synchronized String getLastModified() {
+        return getState().lastModified;
+    }
+
+    /**
+     * @return Time (as in {@link System#currentTimeMillis()}) the stored
+     *         notifications were last confirmed to be current
+     */
+    public synchronized long getLastPollTime() {
+        return getState().lastPollTime;
+    }
+
+    /**
+     * @return Earliest time (as in {@link System#currentTimeMillis()}) the server
+     *         wants to be polled again
+     */
+    public synchronized long getNextPollTime() {
+        State state = getState();
+        return state.lastPollTime + state.pollInterval * 1000L;
+    }
+
+    /**
+     * @return Value for the since parameter of the next poll, or null if all
+     *         notifications need to be fetched
+     */
+    public synchronized Date getSince() {
+        State state = getState();
+        if (state.notifications == null || state.syncedUpTo == 0
+                || System.currentTimeMillis() - state.lastFullSyncTime > FULL_SYNC_INTERVAL) {
+            return null;
+        }
+        return new Date(state.syncedUpTo - SINCE_OVERLAP);
+    }
+
+    /**
+     * Replaces all stored notifications.
+     *
+     * @param serverTime Server time of the response, as in {@link System#currentTimeMillis()}
+     */
+    public synchronized void update(List<Notification> notifications,
+            String lastModified, int pollInterval, long serverTime) {
+        State state = getState();
+        if (state.notifications == null) {
+            // don't flood the user with everything that was unread before
+            for (Notification n : notifications) {
+                Date updatedAt = n.getUpdatedAt();
+                if (updatedAt != null) {
+                    state.notifiedUpTo = Math.max(state.notifiedUpTo, updatedAt.getTime());
+                }
+            }
+        }
+        state.notifications = notifications;
+        buildIndex(notifications);
+        state.lastFullSyncTime = System.currentTimeMillis();
+        state.syncedUpTo = serverTime;
+        setPolled(lastModified, pollInterval);
+    }
+
+    /**
+     * Merges notifications changed since {@link #getSince()} into the stored
+     * ones. Only the groups of the changed notifications are rebuilt.
+     *
+     * @param serverTime Server time of the response, as in {@link System#currentTimeMillis()}
+     */
+    public synchronized void merge(List<Notification> changed,
+            String lastModified, int pollInterval, long serverTime) {
+        State state = getState();
+        Map<Repository, List<Notification>> affected = new TreeMap<>(REPOSITORY_ORDER);
+        for (Notification n : changed) {
+            Notification previous = mNotificationsById.remove(n.getId());
+            if (previous != null) {
+                getAffectedGroup(affected, previous.getRepository()).remove(previous);
+            }
+            if (n.isUnread()) {
+                mNotificationsById.put(n.getId(), n);
+                getAffectedGroup(affected, n.getRepository()).add(n);
+            }
+        }
+        for (Map.Entry<Repository, List<Notification>> entry : affected.entrySet()) {
+            putGroup(entry.getKey(), entry.getValue());
+        }
+        // keep the since parameter (and thus the URL) stable while nothing changes,
+        // so that the following polls can be answered with 304 Not Modified
+        if (!changed.isEmpty()) {
+            state.syncedUpTo = serverTime;
+        }
+        setPolled(lastModified, pollInterval);
+    }
+
+    public synchronized void setNotModified(int pollInterval) {
+        setPolled(getState().lastModified, pollInterval);
+    }
+
+    private void setPolled(String lastModified, int pollInterval) {
+        State state = getState();
+        state.lastModified = lastModified;
+        state.pollInterval = pollInterval > 0 ? pollInterval : DEFAULT_POLL_INTERVAL;
+        state.lastPollTime = System.currentTimeMillis();
+        save();
+    }
+
+    /**
+     * @return Notifications updated since the last call, i.e. those the user
+     *         wasn't told about yet
+     */
+    public synchronized List<Notification> takeUnnotified() {
+        State state = getState();
+        List<Notification> result = new ArrayList<>();
+        if (state.notifications == null) {
+            return result;
+        }
+        long newest = state.notifiedUpTo;
+        for (Notification n : mNotificationsById.values()) {
+            Date updatedAt = n.getUpdatedAt();
+            if (updatedAt != null && updatedAt.getTime() > state.notifiedUpTo) {
+                result.add(n);
+                newest = Math.max(newest, updatedAt.getTime());
+            }
+        }
+        if (newest != state.notifiedUpTo) {
+            state.notifiedUpTo = newest;
+            save();
+        }
+        Collections.sort(result, NEWEST_FIRST);
+        return result;
+    }
+
+    /**
+     * Removes notifications the user marked as read.
+     *
+     * @param repository Repository whose notifications were marked, null for all
+     * @param notification Single notification that was marked, null for all
+     *                     (of the repository)
+     */
+    public synchronized void markAsRead(Repository repository, Notification notification) {
+        State state = getState();
+        if (state.notifications == null) {
+            return;
+        }
+        if (notification != null) {
+            Notification stored = mNotificationsById.remove(notification.getId());
+            if (stored == null) {
+                return;
+            }
+            Repository storedRepository = stored.getRepository();
+            List<Notification> notifications =
+                    new ArrayList<>(mGroups.get(storedRepository).notifications);
+            notifications.remove(stored);
+            putGroup(storedRepository, notifications);
+        } else if (repository != null) {
+            NotificationGroup group = mGroups.remove(repository);
+            if (group == null) {
+                return;
+            }
+            for (Notification n : group.notifications) {
+                mNotificationsById.remove(n.getId());
+            }
+        } else {
+            mNotificationsById.clear();
+            mGroups.clear();
+        }
+        save();
+    }
+
+    public synchronized void clear() {
+        mState = new State();
+        mNotificationsById.clear();
+        mGroups.clear();
+        if (mFile.exists() && !mFile.delete()) {
+            Log.w(Gh4Application.LOG_TAG, "Could not delete " + mFile);
+        }
+    }
+
+    private State getState() {
+        if (mState == null) {
+            mState = load();
+            if (mState.notifications != null) {
+                buildIndex(mState.notifications);
+            }
+        }
+        return mState;
+    }
+
+    private void buildIndex(List<Notification> notifications) {
+        Map<Repository, List<Notification>> grouped = new TreeMap<>(REPOSITORY_ORDER);
+        mNotificationsById.clear();
+        mGroups.clear();
+        for (Notification n : notifications) {
+            if (!n.isUnread()) {
+                continue;
+            }
+            mNotificationsById.put(n.getId(), n);
+            List<Notification> group = grouped.get(n.getRepository());
+            if (group == null) {
+                group = new ArrayList<>();
+                grouped.put(n.getRepository(), group);
+            }
+            group.add(n);
+        }
+        for (Map.Entry<Repository, List<Notification>> entry : grouped.entrySet()) {
+            putGroup(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * @return Modifiable copy of the notifications of the given repository,
+     *         which is created (and remembered in affected) on first access
+     */
+    private List<Notification> getAffectedGroup(Map<Repository, List<Notification>> affected,
+            Repository repository) {
+        List<Notification> notifications = affected.get(repository);
+        if (notifications == null) {
+            NotificationGroup group = mGroups.get(repository);
+            notifications = group != null
+                    ? new ArrayList<>(group.notifications) : new ArrayList<Notification>();
+            affected.put(repository, notifications);
+        }
+        return notifications;
+    }
+
+    private void putGroup(Repository repository, List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            mGroups.remove(repository);
+        } else {
+            Collections.sort(notifications, NEWEST_FIRST);
+            mGroups.put(repository, new NotificationGroup(repository, notifications));
+        }
+    }
+
+    private State load() {
+        if (!mFile.exists()) {
+            return new State();
+        }
+        Reader reader = null;
+        try {
+            reader = new InputStreamReader(new FileInputStream(mFile), "UTF-8");
+            State state = GsonUtils.getGson().fromJson(reader, State.class);
+            return state != null ? state : new State();
+        } catch (IOException | JsonParseException e) {
+            Log.w(Gh4Application.LOG_TAG, "Could not read notification store", e);
+            return new State();
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    private void save() {
+        // write to a temporary file first, so a crash doesn't leave a truncated store
+        if (mState.notifications != null) {
+            mState.notifications = new ArrayList<>(mNotificationsById.values());
+        }
+        File temp = new File(mFile.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(temp), "UTF-8");
+            GsonUtils.getGson().toJson(mState, writer);
+            writer.close();
+            writer = null;
+            if (!temp.renameTo(mFile)) {
+                throw new IOException("Could not rename " + temp);
+            }
+        } catch (IOException e) {
+            Log.w(Gh4Application.LOG_TAG, "Could not write notification store", e);
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.gh4a.sync;
+
+import android.annotation.TargetApi;
+import android.app.PendingIntent;
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.support.v4.app.NotificationCompat;
+import android.support.v4.app.NotificationManagerCompat;
+import android.util.Log;
+
+import com.gh4a.DefaultClient;
+import com.gh4a.Gh4Application;
+import com.gh4a.R;
+import com.gh4a.RequestScheduler;
+import com.gh4a.activities.home.HomeActivity;
+import com.gh4a.fragment.SettingsFragment;
+
+import org.eclipse.egit.github.core.Notification;
+import org.eclipse.egit.github.core.Repository;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Periodically polls the user's notifications in the background (see
+ * {@link NotificationPoller}) and shows a system notification for new ones.
+ * Requires JobScheduler, so it's only available on Lollipop and newer.
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class NotificationsJobService extends JobService {
+    private static final int JOB_ID = 1;
+    private static final int NOTIFICATION_ID = 1;
+    // the server's poll interval is much shorter, but waking up that often isn't worth the battery
+    private static final long JOB_INTERVAL = 15 * 60 * 1000L;
+    private static final int MAX_INBOX_LINES = 5;
+
+    private PollTask mTask;
+
+    public static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP;
+    }
+
+    /**
+     * Schedules or cancels the polling job, depending on login state and settings.
+     */
+    public static void updateSchedule(Context context, SharedPreferences prefs) {
+        if (!isSupported()) {
+            return;
+        }
+        JobScheduler scheduler =
+                (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (!Gh4Application.get().isAuthorized()
+                || !prefs.getBoolean(SettingsFragment.KEY_NOTIFICATIONS, true)) {
+            scheduler.cancel(JOB_ID);
+            return;
+        }
+        for (JobInfo job : scheduler.getAllPendingJobs()) {
+            if (job.getId() == JOB_ID) {
+                return;
+            }
+        }
+        scheduler.schedule(new JobInfo.Builder(JOB_ID,
+                new ComponentName(context, NotificationsJobService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                .setPeriodic(JOB_INTERVAL)
+                .setPersisted(true)
+                .build());
+    }
+
+    /**
+     * Removes the system notification, e.g. because the user is looking at the
+     * notification list already.
+     */
+    public static void cancelNotification(Context context) {
+        NotificationManagerCompat.from(context).cancel(NOTIFICATION_ID);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        mTask = new PollTask(params);
+        mTask.execute();
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        if (mTask != null) {
+            mTask.cancel(true);
+            mTask = null;
+        }
+        return false;
+    }
+
+    private void showNotification(List<Notification> notifications) {
+        int count = notifications.size();
+        Notification first = notifications.get(0);
+        PendingIntent contentIntent = PendingIntent.getActivity(this, 0,
+                HomeActivity.makeNotificationsIntent(this), PendingIntent.FLAG_UPDATE_CURRENT);
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this)
+                .setSmallIcon(R.drawable.icon_notifications)
+                .setCategory(NotificationCompat.CATEGORY_SOCIAL)
+                .setContentIntent(contentIntent)
+                .setAutoCancel(true)
+                .setNumber(count)
+                .setWhen(first.getUpdatedAt().getTime());
+
+        if (count == 1) {
+            builder.setContentTitle(formatRepository(first.getRepository()))
+                    .setContentText(first.getSubject().getTitle());
+        } else {
+            String title = getResources().getQuantityString(
+                    R.plurals.new_notifications, count, count);
+            NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle()
+                    .setBigContentTitle(title);
+            for (int i = 0; i < count && i < MAX_INBOX_LINES; i++) {
+                Notification n = notifications.get(i);
+                style.addLine(getString(R.string.notification_line,
+                        formatRepository(n.getRepository()), n.getSubject().getTitle()));
+            }
+            builder.setContentTitle(title)
+                    .setContentText(first.getSubject().getTitle())
+                    .setStyle(style);
+        }
+
+        NotificationManagerCompat.from(this).notify(NOTIFICATION_ID, builder.build());
+    }
+
+    private static String formatRepository(Repository repository) {
+        return repository.getOwner().getLogin() + "/" + repository.getName();
+    }
+
+    private class PollTask extends AsyncTask<Void, Void, List<Notification>> {
+        private final JobParameters mParams;
+
+        public PollTask(JobParameters params) {
+            mParams = params;
+        }
+
+        @Override
+        protected List<Notification> doInBackground(Void... params) {
+            DefaultClient.setRequestPriority(RequestScheduler.PRIORITY_BACKGROUND);
+            NotificationStore store = Gh4Application.get().getNotificationStore();
+            try {
+                if (NotificationPoller.poll(store, false)) {
+                    return store.takeUnnotified();
+                }
+            } catch (IOException e) {
+                Log.d(Gh4Application.LOG_TAG, "Polling notifications failed", e);
+            } finally {
+                DefaultClient.setRequestPriority(RequestScheduler.PRIORITY_FOREGROUND);
+            }
+            return null;
+        }
+
+        @Override
+        protected void onPostExecute(List<Notification> result) {
+            if (result != null && !result.isEmpty()) {
+                showNotification(result);
+            }
+            mTask = null;
+            jobFinished(mParams, false);
+        }
+    }
+}
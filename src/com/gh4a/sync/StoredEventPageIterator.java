@@ -0,0 +1,149 @@
+package com.gh4a.sync;
+
+import com.gh4a.PageIteratorWithSaveableState;
+import com.gh4a.loader.PageIteratorLoader;
+
+import org.eclipse.egit.github.core.client.GitHubClient;
+import org.eclipse.egit.github.core.client.GitHubResponse;
+import org.eclipse.egit.github.core.client.NoSuchPageException;
+import org.eclipse.egit.github.core.client.PagedRequest;
+import org.eclipse.egit.github.core.event.Event;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Page iterator for event feeds that is backed by an {@link EventFeedStore}.
+ * The first page brings the store up to date: a small first page is fetched
+ * from the server, and if it contains an event that is stored already, only
+ * the newer events are added to the store. Otherwise a first page of regular
+ * size is checked the same way, and if that doesn't reach the stored events
+ * either, it replaces them. All pages are then read from the store; the
+ * server is only asked for history that isn't stored yet.
+ */
+public class StoredEventPageIterator extends PageIteratorWithSaveableState<Event>
+        implements PageIteratorLoader.LocalFirstPageSource<Event> {
+    // small, as usually there are only a few new events since the last visit
+    private static final int SYNC_PAGE_SIZE = 10;
+
+    private final EventFeedStore mStore;
+    private final String mKey;
+    private boolean mSynced;
+    private int mPosition;
+
+    public StoredEventPageIterator(PagedRequest<Event> request, GitHubClient client,
+            EventFeedStore store) {
+        super(request, client);
+        mStore = store;
+        mKey = request.getUri();
+    }
+
+    @Override
+    public Collection<Event> getLocalFirstPage() {
+        return mStore.getEvents(mKey, 0, request.getPageSize());
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        mSynced = false;
+        mPosition = 0;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !mSynced || mPosition < mStore.getEventCount(mKey) || !mStore.isComplete(mKey);
+    }
+
+    @Override
+    public Collection<Event> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            if (!mSynced) {
+                sync();
+                mSynced = true;
+            } else if (mPosition >= mStore.getEventCount(mKey)) {
+                fetchOlder();
+            }
+        } catch (IOException e) {
+            throw new NoSuchPageException(e);
+        }
+
+        List<Event> events = mStore.getEvents(mKey, mPosition, request.getPageSize());
+        mPosition += events.size();
+        return events;
+    }
+
+    private void sync() throws IOException {
+        if (mStore.getEventCount(mKey) == 0) {
+            GitHubResponse response = fetch(PagedRequest.PAGE_FIRST, request.getPageSize());
+            mStore.replace(mKey, getEvents(response), response.getNext() == null);
+            return;
+        }
+
+        GitHubResponse response = fetch(PagedRequest.PAGE_FIRST, SYNC_PAGE_SIZE);
+        if (prependNewEvents(response)) {
+            return;
+        }
+        if (response.getNext() != null && request.getPageSize() > SYNC_PAGE_SIZE) {
+            // busy feed, so don't walk through the new events in small pages
+            response = fetch(PagedRequest.PAGE_FIRST, request.getPageSize());
+            if (prependNewEvents(response)) {
+                return;
+            }
+        }
+        // there's a gap between the new and the stored events
+        mStore.replace(mKey, getEvents(response), response.getNext() == null);
+    }
+
+    /**
+     * @return Whether the response reached the stored events, in which case
+     *         the events before them were added to the store
+     */
+    private boolean prependNewEvents(GitHubResponse response) {
+        List<Event> newEvents = new ArrayList<>();
+        for (Event event : getEvents(response)) {
+            if (mStore.contains(mKey, event.getId())) {
+                mStore.prepend(mKey, newEvents);
+                return true;
+            }
+            newEvents.add(event);
+        }
+        return false;
+    }
+
+    private void fetchOlder() throws IOException {
+        int pageSize = request.getPageSize();
+        // the server's pages have shifted by the events added since the store was
+        // filled, so start at the page containing the last stored event
+        int page = mStore.getEventCount(mKey) / pageSize + PagedRequest.PAGE_FIRST;
+        while (true) {
+            GitHubResponse response = fetch(page, pageSize);
+            boolean complete = response.getNext() == null;
+            if (mStore.append(mKey, getEvents(response), complete) > 0 || complete) {
+                return;
+            }
+            page++;
+        }
+    }
+
+    private GitHubResponse fetch(int page, int pageSize) throws IOException {
+        PagedRequest<Event> pageRequest = new PagedRequest<>(page, pageSize);
+        pageRequest.setUri(request.getUri());
+        pageRequest.setParams(request.getParams());
+        pageRequest.setType(request.getType());
+        pageRequest.setArrayType(request.getArrayType());
+        return client.get(pageRequest);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Event> getEvents(GitHubResponse response) {
+        Object body = response.getBody();
+        return body != null ? new ArrayList<>((Collection<Event>) body) : new ArrayList<Event>();
+    }
+}
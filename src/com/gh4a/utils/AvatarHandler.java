@@ -7,6 +7,7 @@ import java.net.URL;
 import java.util.ArrayList;
 
 import org.eclipse.egit.github.core.User;
+import org.eclipse.egit.github.core.okhttp.OkHttpProvider;
 
 import android.content.Context;
 import android.content.res.Resources;
@@ -25,6 +26,7 @@ import android.support.v4.util.SparseArrayCompat;
 import android.util.Log;
 import android.widget.ImageView;
 
+import com.gh4a.Gh4Application;
 import com.gh4a.R;
 
 public class AvatarHandler {
@@ -165,7 +167,8 @@ public class AvatarHandler {
             url = "https://avatars.githubusercontent.com/u/" + userId;
         }
         return Uri.parse(url).buildUpon()
-                .appendQueryParameter("s", String.valueOf(sMaxImageSizePx))
+                .appendQueryParameter("s", String.valueOf(
+                        Gh4Application.get().getNetworkPolicy().getImageSize(sMaxImageSizePx)))
                 .toString();
     }
 
@@ -206,13 +209,17 @@ public class AvatarHandler {
 
     private static Bitmap fetchBitmap(String url) throws IOException {
         URL realUrl = new URL(url);
-        InputStream input = realUrl.openStream();
+        InputStream input = OkHttpProvider.getOkHttpClient().open(realUrl).getInputStream();
         ByteArrayOutputStream output = new ByteArrayOutputStream();
         byte[] buffer = new byte[2048];
         int read;
 
-        while ((read = input.read(buffer)) != -1) {
-            output.write(buffer, 0, read);
+        try {
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+        } finally {
+            input.close();
         }
 
         byte[] data = output.toByteArray();
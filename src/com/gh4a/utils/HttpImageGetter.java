@@ -24,6 +24,7 @@ import android.graphics.Canvas;
 import android.graphics.Point;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.net.Uri;
 import android.os.AsyncTask;
 import android.os.Handler;
 import android.support.annotation.NonNull;
@@ -40,9 +41,13 @@ import android.widget.TextView;
 
 import com.caverock.androidsvg.SVG;
 import com.caverock.androidsvg.SVGParseException;
+import com.gh4a.CancellationToken;
+import com.gh4a.Gh4Application;
 import com.gh4a.R;
 import com.gh4a.fragment.SettingsFragment;
 
+import org.eclipse.egit.github.core.okhttp.OkHttpProvider;
+
 import java.io.File;
 import java.io.FileDescriptor;
 import java.io.IOException;
@@ -55,11 +60,13 @@ import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import pl.droidsonroids.gif.GifDrawable;
 
 public class HttpImageGetter implements ImageGetter {
+    private static final String CAMO_HOST = "camo.githubusercontent.com";
 
     private static class LoadingImageGetter implements ImageGetter {
         private final Drawable mImage;
@@ -305,6 +312,7 @@ public class HttpImageGetter implements ImageGetter {
 
     private boolean mDestroyed;
     private boolean mResumed;
+    private final CancellationToken mCancellationToken = new CancellationToken();
 
     public HttpImageGetter(Context context) {
         mContext = context;
@@ -350,6 +358,8 @@ public class HttpImageGetter implements ImageGetter {
         }
         mObjectInfos.clear();
         mDestroyed = true;
+        // abort image downloads still in progress
+        mCancellationToken.cancel();
     }
 
     public void encode(final Context context, final Object id, final String html) {
@@ -403,12 +413,19 @@ public class HttpImageGetter implements ImageGetter {
     public Drawable getDrawable(String source) {
         Bitmap bitmap = null;
 
+        if (isVectorImageUrl(source)
+                && !Gh4Application.get().getNetworkPolicy().shouldLoadVectorImages()) {
+            // don't download an image that isn't going to be rendered anyway
+            return mErrorDrawable;
+        }
+
         if (!mDestroyed) {
             File output = null;
             InputStream is = null;
             HttpURLConnection connection = null;
             try {
-                connection = (HttpURLConnection) new URL(source).openConnection();
+                connection = OkHttpProvider.getOkHttpClient().open(new URL(source));
+                mCancellationToken.register(connection);
                 is = connection.getInputStream();
                 if (is != null) {
                     String mime = connection.getContentType();
@@ -419,7 +436,10 @@ public class HttpImageGetter implements ImageGetter {
                         mime = URLConnection.guessContentTypeFromStream(is);
                     }
                     if (mime != null && mime.startsWith("image/svg")) {
-                        bitmap = renderSvgToBitmap(mContext.getResources(), is, mWidth, mHeight);
+                        // only for URLs which didn't tell they point to an SVG
+                        if (Gh4Application.get().getNetworkPolicy().shouldLoadVectorImages()) {
+                            bitmap = renderSvgToBitmap(mContext.getResources(), is, mWidth, mHeight);
+                        }
                     } else {
                         boolean isGif = mime != null && mime.startsWith("image/gif");
                         if (!isGif || canLoadGif()) {
@@ -450,7 +470,7 @@ public class HttpImageGetter implements ImageGetter {
                     }
                 }
                 if (connection != null) {
-                    connection.disconnect();
+                    mCancellationToken.unregister(connection);
                 }
             }
         }
@@ -471,13 +491,43 @@ public class HttpImageGetter implements ImageGetter {
         return drawable;
     }
 
+    private static boolean isVectorImageUrl(String source) {
+        Uri uri = Uri.parse(source);
+        List<String> segments = uri.getPathSegments();
+        if (CAMO_HOST.equals(uri.getHost()) && segments.size() == 2) {
+            // GitHub proxies images in rendered markdown, with the original URL hex encoded
+            String original = decodeHex(segments.get(1));
+            if (original != null) {
+                uri = Uri.parse(original);
+            }
+        }
+        String path = uri.getPath();
+        return path != null && path.toLowerCase(Locale.US).endsWith(".svg");
+    }
+
+    private static String decodeHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(hex.length() / 2);
+        for (int i = 0; i < hex.length(); i += 2) {
+            int high = Character.digit(hex.charAt(i), 16);
+            int low = Character.digit(hex.charAt(i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            sb.append((char) (high * 16 + low));
+        }
+        return sb.toString();
+    }
+
     private boolean canLoadGif() {
         SharedPreferences prefs = mContext.getSharedPreferences(SettingsFragment.PREF_NAME,
                 Context.MODE_PRIVATE);
         int mode = prefs.getInt(SettingsFragment.KEY_GIF_LOADING, 1);
         switch (mode) {
             case 1: // load via Wifi
-                return !UiUtils.downloadNeedsWarning(mContext);
+                return Gh4Application.get().getNetworkPolicy().shouldLoadAnimatedImages();
             case 2: // always load
                 return true;
             default: